@@ -0,0 +1,89 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.util.concurrent.TimeUnit;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures the creation of coordinate reference systems from Well Known Texts.
+ * The {@code uncached} benchmark cycles over more CRS than the cache capacity,
+ * so most calls need to parse the WKT.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CRSBenchmark {
+    /**
+     * Well Known Texts of the UTM zones of both hemispheres.
+     */
+    private String[] wkts;
+
+    /**
+     * Index of the next WKT to use.
+     */
+    private int index;
+
+    /**
+     * Prepares the Well Known Texts.
+     */
+    @Setup
+    public void createWKT() {
+        wkts = new String[120];
+        for (int i=0; i<60; i++) {
+            wkts[i]      = SyntheticRaster.wkt(32601 + i);
+            wkts[i + 60] = SyntheticRaster.wkt(32701 + i);
+        }
+    }
+
+    /**
+     * Creates always the same CRS, which should be served by the cache.
+     *
+     * @return the CRS.
+     */
+    @Benchmark
+    public CoordinateReferenceSystem cached() {
+        return CRS.create(wkts[0]);
+    }
+
+    /**
+     * Creates a different CRS on each call.
+     *
+     * @return the CRS.
+     */
+    @Benchmark
+    public CoordinateReferenceSystem uncached() {
+        final CoordinateReferenceSystem crs = CRS.create(wkts[index]);
+        index = (index + 1) % wkts.length;
+        return crs;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.opengis.metadata.Metadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures the latency of opening a file and extracting its metadata.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OpenBenchmark {
+    /**
+     * Number of rows and columns of the raster.
+     */
+    @Param({"512", "8192"})
+    public int size;
+
+    /**
+     * Whether the raster is tiled or striped.
+     */
+    @Param({"true", "false"})
+    public boolean tiled;
+
+    /**
+     * The GeoTIFF compression.
+     */
+    @Param({"NONE", "DEFLATE"})
+    public String compression;
+
+    /**
+     * Directory of generated rasters.
+     */
+    private Path directory;
+
+    /**
+     * The raster to open.
+     */
+    private Path file;
+
+    /**
+     * Generates the raster.
+     *
+     * @throws IOException if the raster can not be created.
+     */
+    @Setup(Level.Trial)
+    public void createRaster() throws IOException {
+        directory = SyntheticRaster.directory();
+        file = SyntheticRaster.create(directory, size, tiled, compression);
+    }
+
+    /**
+     * Deletes the raster.
+     *
+     * @throws IOException if the raster can not be deleted.
+     */
+    @TearDown(Level.Trial)
+    public void deleteRaster() throws IOException {
+        SyntheticRaster.delete(directory);
+    }
+
+    /**
+     * Opens and closes the file.
+     *
+     * @throws IOException if the file can not be opened.
+     */
+    @Benchmark
+    public void open() throws IOException {
+        new DataSet(file).close();
+    }
+
+    /**
+     * Opens the file and fetches all metadata.
+     *
+     * @return the metadata.
+     * @throws IOException if the file can not be opened.
+     */
+    @Benchmark
+    public Metadata getMetadata() throws IOException {
+        try (DataSet ds = new DataSet(file)) {
+            return ds.getMetadata();
+        }
+    }
+
+    /**
+     * Opens the file and fetches only the raster size in lazy mode.
+     *
+     * @return the raster width.
+     * @throws IOException if the file can not be opened.
+     */
+    @Benchmark
+    public int getLazyMetadata() throws IOException {
+        try (DataSet ds = new DataSet(file, DataSet.Option.LAZY_METADATA)) {
+            return ((RasterMetadata) ds.getMetadata()).getWidth();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.gdal.gdalconst.gdalconst;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+
+/**
+ * Measures the throughput of reading windows of sample values at random locations in a raster.
+ * Each read fetches all bands of a square window. The same benchmark is run with one thread and
+ * with four threads sharing the same dataset, in default mode and in
+ * {@linkplain DataSet.Option#CONCURRENT_READS concurrent reads} mode.
+ * Other thread counts can be tested with the {@code -t} option of JMH.
+ *
+ * <p>Each thread reads its own sequence of windows, so that threads do not merely hit the blocks
+ * decoded by another thread. The GDAL block cache has a fixed size for repeatable results on
+ * machines with different amounts of memory.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadBenchmark {
+    /**
+     * Size in bytes of the GDAL block cache during the benchmark.
+     */
+    private static final int CACHE_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * Number of rows and columns of the raster.
+     */
+    @Param("8192")
+    public int size;
+
+    /**
+     * Number of rows and columns of the windows to read.
+     */
+    @Param({"64", "512", "2048"})
+    public int window;
+
+    /**
+     * Whether the raster is tiled or striped.
+     */
+    @Param({"true", "false"})
+    public boolean tiled;
+
+    /**
+     * The GeoTIFF compression.
+     */
+    @Param({"NONE", "DEFLATE", "LZW"})
+    public String compression;
+
+    /**
+     * Whether each thread uses its own native handle.
+     */
+    @Param({"false", "true"})
+    public boolean concurrent;
+
+    /**
+     * Directory of generated rasters.
+     */
+    private Path directory;
+
+    /**
+     * The dataset shared by all threads.
+     */
+    DataSet dataset;
+
+    /**
+     * Generates the raster and opens it.
+     *
+     * @throws IOException if the raster can not be created.
+     */
+    @Setup(Level.Trial)
+    public void open() throws IOException {
+        NativeResources.setGDALCacheMax(CACHE_SIZE);
+        directory = SyntheticRaster.directory();
+        final Path file = SyntheticRaster.create(directory, size, tiled, compression);
+        dataset = concurrent ? new DataSet(file, DataSet.Option.CONCURRENT_READS) : new DataSet(file);
+    }
+
+    /**
+     * Closes the dataset and deletes the raster.
+     *
+     * @throws IOException if the raster can not be deleted.
+     */
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        dataset.close();
+        SyntheticRaster.delete(directory);
+    }
+
+    /**
+     * The buffer and random number generator of each thread.
+     */
+    @State(Scope.Thread)
+    public static class Reader {
+        /** Where to store sample values. */
+        ByteBuffer buffer;
+
+        /** Random generator for window locations, with a seed fixed for each thread for repeatable sequences. */
+        Random random;
+
+        /**
+         * Allocates the buffer.
+         *
+         * @param  bench   the benchmark configuration.
+         * @param  thread  information about the current thread, used for a different seed in each thread.
+         */
+        @Setup(Level.Trial)
+        public void allocate(final ReadBenchmark bench, final ThreadParams thread) {
+            buffer = ByteBuffer.allocateDirect(bench.window * bench.window * SyntheticRaster.NUM_BANDS * Short.BYTES);
+            random = new Random(846249374L + 31L * thread.getThreadIndex());
+        }
+    }
+
+    /**
+     * Reads a window at a random location.
+     */
+    private ByteBuffer read(final Reader reader) throws IOException {
+        final int x = reader.random.nextInt(size - window + 1);
+        final int y = reader.random.nextInt(size - window + 1);
+        return dataset.read(new Rectangle(x, y, window, window), null, gdalconst.GDT_Int16, reader.buffer);
+    }
+
+    /**
+     * Reads windows from a single thread.
+     *
+     * @param  reader  the buffer of the current thread.
+     * @return the sample values.
+     * @throws IOException if an error occurred while reading.
+     */
+    @Benchmark
+    @Threads(1)
+    public ByteBuffer readOneThread(final Reader reader) throws IOException {
+        return read(reader);
+    }
+
+    /**
+     * Reads windows from four threads sharing the same dataset.
+     *
+     * @param  reader  the buffer of the current thread.
+     * @return the sample values.
+     * @throws IOException if an error occurred while reading.
+     */
+    @Benchmark
+    @Threads(4)
+    public ByteBuffer readFourThreads(final Reader reader) throws IOException {
+        return read(reader);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.gdal.gdal.Band;
+import org.gdal.gdal.Dataset;
+import org.gdal.gdal.Driver;
+import org.gdal.gdal.gdal;
+import org.gdal.gdalconst.gdalconst;
+import org.gdal.osr.SpatialReference;
+
+
+/**
+ * Generates rasters used by the benchmarks. The raster is first filled in memory with the GDAL {@code MEM}
+ * driver, then copied to a GeoTIFF file with the requested layout and compression. Sample values are a
+ * deterministic pattern with some smooth gradients and some noise, so that compression ratios are realistic
+ * and results are repeatable.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+final class SyntheticRaster {
+    /**
+     * EPSG code of the CRS assigned to generated rasters (WGS 84 / UTM zone 31N).
+     */
+    private static final int EPSG = 32631;
+
+    /**
+     * Number of bands in generated rasters.
+     */
+    static final int NUM_BANDS = 3;
+
+    static {
+        gdal.AllRegister();
+    }
+
+    /**
+     * Do not allow instantiation of this class.
+     */
+    private SyntheticRaster() {
+    }
+
+    /**
+     * Returns the WKT of the CRS identified by the given EPSG code.
+     *
+     * @param  code  the EPSG code.
+     * @return the Well Known Text of the CRS.
+     */
+    static String wkt(final int code) {
+        final SpatialReference srs = new SpatialReference();
+        try {
+            if (srs.ImportFromEPSG(code) != 0) {
+                throw new IllegalArgumentException("Unknown EPSG code: " + code);
+            }
+            return srs.ExportToWkt();
+        } finally {
+            srs.delete();
+        }
+    }
+
+    /**
+     * Creates a GeoTIFF file of the given size in the given directory.
+     *
+     * @param  directory    the directory where to create the file.
+     * @param  size         number of rows and columns.
+     * @param  tiled        {@code true} for 256×256 tiles, or {@code false} for strips.
+     * @param  compression  GeoTIFF compression: {@code "NONE"}, {@code "DEFLATE"}, {@code "LZW"}, <var>etc.</var>
+     * @return the created file.
+     * @throws IOException if the file can not be created.
+     */
+    static Path create(final Path directory, final int size, final boolean tiled, final String compression) throws IOException {
+        final Path file = directory.resolve("synthetic-" + size + (tiled ? "-tiled-" : "-striped-") + compression + ".tiff");
+        if (Files.exists(file)) {
+            return file;
+        }
+        final Driver mem = gdal.GetDriverByName("MEM");
+        final Dataset ds = mem.Create("", size, size, NUM_BANDS, gdalconst.GDT_Int16);
+        if (ds == null) {
+            throw GDALException.lastError("Can not create an in-memory raster.");
+        }
+        try {
+            ds.SetGeoTransform(new double[] {500000, 10, 0, 4000000 + 10.0*size, 0, -10});
+            ds.SetProjection(wkt(EPSG));
+            final ByteBuffer row = ByteBuffer.allocateDirect(size * Short.BYTES).order(ByteOrder.nativeOrder());
+            for (int b=1; b<=NUM_BANDS; b++) {
+                final Band band = ds.GetRasterBand(b);
+                for (int y=0; y<size; y++) {
+                    row.clear();
+                    for (int x=0; x<size; x++) {
+                        final int noise = ((x * 7919 + y * 104729 + b * 31) >>> 3) & 0x3F;
+                        row.putShort((short) (b * 1000 + x + y + noise));
+                    }
+                    if (band.WriteRaster_Direct(0, y, size, 1, gdalconst.GDT_Int16, row) != gdalconst.CE_None) {
+                        throw GDALException.lastError("Can not write row " + y + '.');
+                    }
+                }
+            }
+            final List<String> options = new ArrayList<>();
+            options.add("COMPRESS=" + compression);
+            if (tiled) {
+                options.add("TILED=YES");
+                options.add("BLOCKXSIZE=256");
+                options.add("BLOCKYSIZE=256");
+            }
+            final Dataset copy = gdal.GetDriverByName("GTiff").CreateCopy(file.toString(), ds, 0, options.toArray(new String[options.size()]));
+            if (copy == null) {
+                throw GDALException.lastError("Can not create \"" + file + "\".");
+            }
+            copy.delete();
+        } finally {
+            ds.delete();
+        }
+        return file;
+    }
+
+    /**
+     * Creates a temporary directory for generated rasters.
+     *
+     * @return the temporary directory.
+     * @throws IOException if the directory can not be created.
+     */
+    static Path directory() throws IOException {
+        return Files.createTempDirectory("geoapi-gdal-benchmark");
+    }
+
+    /**
+     * Deletes the given directory and all files in it.
+     *
+     * @param  directory  the directory to delete.
+     * @throws IOException if a file can not be deleted.
+     */
+    static void delete(final Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (final Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
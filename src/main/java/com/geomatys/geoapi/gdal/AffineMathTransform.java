@@ -0,0 +1,143 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import org.opengis.referencing.operation.MathTransform2D;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.NoninvertibleTransformException;
+
+
+/**
+ * A math transform backed by a Java2D affine transform. This is used for the conversion
+ * from pixel coordinates to "real world" coordinates given by the GDAL geotransform.
+ * Arrays of coordinates are transformed in pure Java without any native call.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+final class AffineMathTransform extends Transform2D {
+    /**
+     * The affine transform. Shall not be modified.
+     */
+    private final AffineTransform transform;
+
+    /**
+     * Creates a new math transform for the given affine transform.
+     *
+     * @param  transform  the affine transform, copied by this constructor.
+     */
+    AffineMathTransform(final AffineTransform transform) {
+        this.transform = new AffineTransform(transform);
+    }
+
+    /**
+     * Transforms a list of coordinate tuples.
+     */
+    @Override
+    public void transform(final double[] srcPts, final int srcOff, final double[] dstPts, final int dstOff, final int numPts) {
+        transform.transform(srcPts, srcOff, dstPts, dstOff, numPts);
+    }
+
+    /**
+     * Transforms the given shape.
+     */
+    @Override
+    public Shape createTransformedShape(final Shape shape) {
+        return transform.createTransformedShape(shape);
+    }
+
+    /**
+     * Returns the affine transform coefficients, which are the same at every points.
+     */
+    @Override
+    public Matrix derivative(final Point2D point) {
+        return new Matrix2(transform.getScaleX(), transform.getShearX(),
+                           transform.getShearY(), transform.getScaleY());
+    }
+
+    /**
+     * Returns the inverse of this transform.
+     *
+     * @return the inverse transform.
+     * @throws NoninvertibleTransformException if the affine transform is not invertible.
+     */
+    @Override
+    public MathTransform2D inverse() throws NoninvertibleTransformException {
+        try {
+            return new AffineMathTransform(transform.createInverse());
+        } catch (java.awt.geom.NoninvertibleTransformException e) {
+            throw (NoninvertibleTransformException) new NoninvertibleTransformException(e.getMessage()).initCause(e);
+        }
+    }
+
+    /**
+     * Returns whether this transform does nothing.
+     */
+    @Override
+    public boolean isIdentity() {
+        return transform.isIdentity();
+    }
+
+    /**
+     * Returns the Well Known Text of this transform.
+     */
+    @Override
+    public String toWKT() {
+        return "PARAM_MT[\"Affine\", "
+                + "PARAMETER[\"num_row\", 3], "
+                + "PARAMETER[\"num_col\", 3], "
+                + "PARAMETER[\"elt_0_0\", " + transform.getScaleX()     + "], "
+                + "PARAMETER[\"elt_0_1\", " + transform.getShearX()     + "], "
+                + "PARAMETER[\"elt_0_2\", " + transform.getTranslateX() + "], "
+                + "PARAMETER[\"elt_1_0\", " + transform.getShearY()     + "], "
+                + "PARAMETER[\"elt_1_1\", " + transform.getScaleY()     + "], "
+                + "PARAMETER[\"elt_1_2\", " + transform.getTranslateY() + "]]";
+    }
+
+    @Override public String  toString()             {return toWKT();}
+    @Override public int     hashCode()             {return transform.hashCode() ^ 0x5A1E7F3B;}
+    @Override public boolean equals(final Object o) {return (o instanceof AffineMathTransform) && transform.equals(((AffineMathTransform) o).transform);}
+
+    /**
+     * A 2×2 matrix, used for the derivative of affine transforms.
+     */
+    private static final class Matrix2 implements Matrix {
+        /** The matrix elements in row-major order. */
+        private final double[] elements;
+
+        /** Creates a new matrix with the given elements in row-major order. */
+        Matrix2(final double... elements) {
+            this.elements = elements;
+        }
+
+        @Override public int     getNumRow()                             {return 2;}
+        @Override public int     getNumCol()                             {return 2;}
+        @Override public double  getElement(int row, int col)            {return elements[index(row, col)];}
+        @Override public void    setElement(int row, int col, double v)  {elements[index(row, col)] = v;}
+        @Override public boolean isIdentity()                            {return elements[0] == 1 && elements[1] == 0 && elements[2] == 0 && elements[3] == 1;}
+        @Override public Matrix  clone()                                 {return new Matrix2(elements.clone());}
+
+        /** Returns the index of the given element, after verification that it is inside the matrix. */
+        private static int index(final int row, final int col) {
+            if ((row & ~1) != 0 || (col & ~1) != 0) {
+                throw new IndexOutOfBoundsException("No element at (" + row + ", " + col + ").");
+            }
+            return row * 2 + col;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import org.gdal.osr.SpatialReference;
+import org.opengis.metadata.Identifier;
+import org.opengis.metadata.citation.Citation;
+import org.opengis.metadata.citation.CitationDate;
+import org.opengis.metadata.citation.PresentationForm;
+import org.opengis.metadata.citation.ResponsibleParty;
+import org.opengis.metadata.citation.Series;
+import org.opengis.referencing.ReferenceIdentifier;
+import org.opengis.util.InternationalString;
+
+
+/**
+ * An identifier such as {@code EPSG:4326} given by GDAL {@code GetAuthorityName(…)} and {@code GetAuthorityCode(…)}.
+ * The authority is cited by its name only, so this class implements {@link Citation} itself.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+final class AuthorityCode implements ReferenceIdentifier, Citation {
+    /**
+     * The authority name, for example {@code "EPSG"}.
+     */
+    private final String authority;
+
+    /**
+     * The code allocated by the authority, for example {@code "4326"}.
+     */
+    private final String code;
+
+    /**
+     * Creates a new identifier.
+     *
+     * @param  authority  the authority name, for example {@code "EPSG"}.
+     * @param  code       the code allocated by the authority, for example {@code "4326"}.
+     */
+    AuthorityCode(final String authority, final String code) {
+        this.authority = authority;
+        this.code      = code;
+    }
+
+    /**
+     * Returns an identifier parsed from the given {@code "authority:code"} string.
+     *
+     * @param  identifier  the identifier as {@code "authority:code"}, or {@code null} or empty if none.
+     * @return the identifier, or {@code null} if none.
+     */
+    static AuthorityCode parse(final String identifier) {
+        if (identifier != null) {
+            final int s = identifier.indexOf(':');
+            if (s > 0 && s < identifier.length() - 1) {
+                return new AuthorityCode(identifier.substring(0, s), identifier.substring(s + 1));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the identifier of the given node of a GDAL spatial reference system, if declared in the WKT.
+     *
+     * @param  srs   the GDAL spatial reference system information.
+     * @param  node  the node for which to get the identifier, or {@code null} for the root.
+     * @return the identifier, or {@code null} if none.
+     */
+    static AuthorityCode create(final SpatialReference srs, final String node) {
+        final String authority = srs.GetAuthorityName(node);
+        if (authority != null && !authority.isEmpty()) {
+            final String code = srs.GetAuthorityCode(node);
+            if (code != null && !code.isEmpty()) {
+                return new AuthorityCode(authority, code);
+            }
+        }
+        return null;
+    }
+
+    @Override public Citation            getAuthority() {return this;}
+    @Override public String              getCodeSpace() {return authority;}
+    @Override public String              getCode()      {return code;}
+    @Override public String              getVersion()   {return null;}
+    @Override public InternationalString getTitle()     {return new Literal(authority);}
+
+    /**
+     * Returns the identifier as {@code "authority:code"}.
+     */
+    @Override
+    public String toString() {
+        return authority + ':' + code;
+    }
+
+    /**
+     * Compares this identifier with the given object for equality.
+     *
+     * @param  other  the object to compare with this identifier.
+     * @return whether the given object is an identifier with the same authority and code.
+     */
+    @Override
+    public boolean equals(final Object other) {
+        if (other instanceof AuthorityCode) {
+            final AuthorityCode that = (AuthorityCode) other;
+            return authority.equals(that.authority) && code.equals(that.code);
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code value for this identifier.
+     */
+    @Override
+    public int hashCode() {
+        return code.hashCode() + 31 * authority.hashCode();
+    }
+
+    /** Unimplemented methods. */
+    @Override public Collection<InternationalString>  getAlternateTitles()          {return Collections.emptyList();}
+    @Override public Collection<CitationDate>         getDates()                    {return Collections.emptyList();}
+    @Override public InternationalString              getEdition()                  {return null;}
+    @Override public Date                             getEditionDate()              {return null;}
+    @Override public Collection<Identifier>           getIdentifiers()              {return Collections.emptyList();}
+    @Override public Collection<ResponsibleParty>     getCitedResponsibleParties()  {return Collections.emptyList();}
+    @Override public Collection<PresentationForm>     getPresentationForms()        {return Collections.emptyList();}
+    @Override public Series                           getSeries()                   {return null;}
+    @Override public InternationalString              getOtherCitationDetails()     {return null;}
+    @Override public InternationalString              getCollectiveTitle()          {return null;}
+    @Override public String                           getISBN()                     {return null;}
+    @Override public String                           getISSN()                     {return null;}
+}
@@ -13,12 +13,18 @@
  */
 package com.geomatys.geoapi.gdal;
 
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.measure.Unit;
+import javax.measure.quantity.Angle;
+import javax.measure.quantity.Length;
 import org.gdal.osr.SpatialReference;
 import org.gdal.osr.osrConstants;
 import org.opengis.referencing.cs.AxisDirection;
 import org.opengis.referencing.cs.CoordinateSystemAxis;
 import org.opengis.referencing.cs.RangeMeaning;
+import tech.uom.seshat.Units;
 
 
 /**
@@ -29,21 +35,95 @@ import org.opengis.referencing.cs.RangeMeaning;
  * @since   1.0
  */
 final class Axis extends ReferencingObject implements CoordinateSystemAxis {
+    /**
+     * Maximal number of axes to keep in the {@linkplain #POOL pool}.
+     */
+    private static final int POOL_SIZE = 64;
+
+    /**
+     * Axes created by {@link #create(SpatialReference, String, int, Unit)}. Since axes are immutable and
+     * there is only a few distinct axes in practice, equal instances can be shared by all CRS.
+     */
+    private static final ConcurrentHashMap<Axis,Axis> POOL = new ConcurrentHashMap<>();
+
     /**
      * Axis orientation has one of {@link osrConstants} constant.
      */
     private final int orientation;
 
+    /**
+     * The unit of measurement of coordinate values along this axis.
+     */
+    private final Unit<?> unit;
+
     /**
      * Creates a new axis for the given GDAL reference system.
      *
-     * @param  srs         the GDAL spatial reference system information.
+     * @param  srs        the GDAL spatial reference system information.
      * @param  kind       the kind of CRS for which to create an axis: {@code "GEOGCS"}, {@code "PROJCS"}, <var>etc.</var>
      * @param  dimension  the dimension for which to create an axis, starting at 0.
+     * @param  unit       the unit of measurement of coordinate values along the axis.
      */
-    Axis(final SpatialReference srs, final String kind, final int dimension) {
+    private Axis(final SpatialReference srs, final String kind, final int dimension, final Unit<?> unit) {
         super(srs.GetAxisName(kind, dimension));
         orientation = srs.GetAxisOrientation(kind, dimension);
+        this.unit   = unit;
+    }
+
+    /**
+     * Returns an axis for the given GDAL reference system, sharing an existing instance if possible.
+     *
+     * @param  srs        the GDAL spatial reference system information.
+     * @param  kind       the kind of CRS for which to create an axis: {@code "GEOGCS"}, {@code "PROJCS"}, <var>etc.</var>
+     * @param  dimension  the dimension for which to create an axis, starting at 0.
+     * @param  unit       the unit of measurement of coordinate values along the axis.
+     * @return the axis, either a new instance or an existing equal one.
+     */
+    static Axis create(final SpatialReference srs, final String kind, final int dimension, final Unit<?> unit) {
+        final Axis axis = new Axis(srs, kind, dimension, unit);
+        if (POOL.size() >= POOL_SIZE) {
+            final Iterator<Axis> it = POOL.keySet().iterator();
+            if (it.hasNext()) {
+                POOL.remove(it.next());
+            }
+        }
+        final Axis existing = POOL.putIfAbsent(axis, axis);
+        return (existing != null) ? existing : axis;
+    }
+
+    /**
+     * Returns the linear unit for the given GDAL {@code GetLinearUnits()} value.
+     *
+     * @param  metres  size of the unit in metres.
+     * @return the linear unit, using predefined constants for the most common units.
+     */
+    static Unit<Length> linearUnit(final double metres) {
+        if (metres == 1 || !(metres > 0))        return Units.METRE;
+        if (matches(metres, 0.3048))             return Units.FOOT;
+        if (matches(metres, 1200d / 3937))       return Units.US_SURVEY_FOOT;
+        if (matches(metres, 1000))               return Units.KILOMETRE;
+        return Units.METRE.multiply(metres);
+    }
+
+    /**
+     * Returns the angular unit for the given GDAL {@code GetAngularUnits()} value.
+     *
+     * @param  radians  size of the unit in radians.
+     * @return the angular unit, using predefined constants for the most common units.
+     */
+    static Unit<Angle> angularUnit(final double radians) {
+        if (radians == 1)                        return Units.RADIAN;
+        if (!(radians > 0))                      return Units.DEGREE;
+        if (matches(radians, Math.PI / 180))     return Units.DEGREE;
+        if (matches(radians, Math.PI / 200))     return Units.GRAD;
+        return Units.RADIAN.multiply(radians);
+    }
+
+    /**
+     * Returns whether the given GDAL unit factor matches the expected value, ignoring rounding errors in the WKT.
+     */
+    private static boolean matches(final double factor, final double expected) {
+        return Math.abs(factor - expected) <= expected * 1E-9;
     }
 
     /**
@@ -63,9 +143,33 @@ final class Axis extends ReferencingObject implements CoordinateSystemAxis {
     }
 
     @Override public String  getAbbreviation() {return null;}                          // TODO
-    @Override public Unit<?> getUnit()         {return null;}                          // TODO
+    @Override public Unit<?> getUnit()         {return unit;}
     @Override public String  toWKT()           {return "AXIS[\"" + getName() + "\", " + getDirection().name() + ']';}
 
+    /**
+     * Compares this axis with the given object for equality.
+     *
+     * @param  other  the object to compare with this axis.
+     * @return whether the given object is an axis with the same name, orientation and unit.
+     */
+    @Override
+    public boolean equals(final Object other) {
+        if (other instanceof Axis) {
+            final Axis that = (Axis) other;
+            return orientation == that.orientation && Objects.equals(getCode(), that.getCode())
+                    && Objects.equals(unit, that.unit);
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code value for this axis.
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getCode()) + 31 * (orientation + 31 * Objects.hashCode(unit));
+    }
+
     /** Unimplemented methods. */
     @Override public double       getMinimumValue() {return Double.NEGATIVE_INFINITY;}
     @Override public double       getMaximumValue() {return Double.POSITIVE_INFINITY;}
@@ -0,0 +1,367 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.stream.IntStream;
+import javax.measure.Unit;
+import javax.measure.quantity.Length;
+import org.gdal.gdal.Band;
+import org.gdal.gdal.Dataset;
+import org.gdal.gdal.gdal;
+import org.gdal.gdalconst.gdalconst;
+import org.opengis.metadata.content.BandDefinition;
+import org.opengis.metadata.content.PolarizationOrientation;
+import org.opengis.metadata.content.TransferFunctionType;
+import org.opengis.util.InternationalString;
+import org.opengis.util.MemberName;
+
+
+/**
+ * Statistics about the sample values of a band: minimum, maximum, mean, standard deviation,
+ * number of "no data" values and histogram. Instances are created by {@link DataSet#computeStatistics(int)}
+ * and are also available as the {@linkplain org.opengis.metadata.content.CoverageDescription#getDimensions()
+ * dimensions} of the dataset metadata.
+ *
+ * <p>Statistics are computed by reading the band block by block in parallel. Each thread accumulates values in
+ * primitive fields for the blocks that it reads, and the partial results are merged at the end. The whole band
+ * is never loaded in memory. Two passes are done: the first one for the minimum, maximum and moments,
+ * and the second one for the histogram, which needs the minimum and maximum values.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final class BandStatistics implements org.opengis.metadata.content.Band {
+    /**
+     * Description of the band as given by GDAL, or {@code null} if none.
+     */
+    private final String description;
+
+    /**
+     * Number of bits of each sample value in the band native type.
+     */
+    private final int bitsPerValue;
+
+    /**
+     * Number of valid values and number of "no data" values (including NaN).
+     */
+    private final long count, noDataCount;
+
+    /**
+     * Statistics about the valid values.
+     */
+    private final double minimum, maximum, mean, standardDeviation;
+
+    /**
+     * Number of values in each bin of equal width between {@link #minimum} and {@link #maximum} inclusive.
+     */
+    private final long[] histogram;
+
+    /**
+     * Creates new statistics from the given accumulated values.
+     */
+    private BandStatistics(final String description, final int bitsPerValue, final Accumulator moments, final long[] histogram) {
+        this(description, bitsPerValue, moments.count, moments.noDataCount, moments.minimum, moments.maximum, moments.mean,
+             (moments.count > 1) ? Math.sqrt(moments.m2 / (moments.count - 1)) : Double.NaN, histogram);
+    }
+
+    /**
+     * Creates statistics from values computed previously.
+     *
+     * @param  description        description of the band, or {@code null} if none.
+     * @param  bitsPerValue       number of bits of each sample value in the band native type.
+     * @param  count              number of valid values.
+     * @param  noDataCount        number of "no data" values, including NaN.
+     * @param  minimum            the smallest valid value.
+     * @param  maximum            the largest valid value.
+     * @param  mean               the mean of valid values.
+     * @param  standardDeviation  the standard deviation of valid values, or NaN if undefined.
+     * @param  histogram          number of values in each bin between the minimum and maximum inclusive.
+     */
+    BandStatistics(final String description, final int bitsPerValue, final long count, final long noDataCount,
+                   final double minimum, final double maximum, final double mean, final double standardDeviation,
+                   final long[] histogram)
+    {
+        this.description       = description;
+        this.bitsPerValue      = bitsPerValue;
+        this.count             = count;
+        this.noDataCount       = noDataCount;
+        this.minimum           = minimum;
+        this.maximum           = maximum;
+        this.mean              = mean;
+        this.standardDeviation = standardDeviation;
+        this.histogram         = histogram;
+    }
+
+    /**
+     * Values accumulated by one thread for the blocks that it read. Used for both passes:
+     * the first pass computes the moments and the second pass computes the histogram.
+     */
+    private static final class Accumulator {
+        /** The band size, block size and number of blocks per row. */
+        private final int width, height, blockWidth, blockHeight, numBlocksX;
+
+        /** The "no data" value, or {@code null} if none. */
+        private final Double noData;
+
+        /** Histogram minimum and factor converting values to bin indices, used only in second pass. */
+        private final double offset, scale;
+
+        /** Histogram being computed in second pass, or {@code null} in first pass. */
+        final long[] histogram;
+
+        /** Number of valid values and number of "no data" values. */
+        long count, noDataCount;
+
+        /** Minimum, maximum, mean and sum of squared differences from the mean (Welford's algorithm). */
+        double minimum = Double.POSITIVE_INFINITY, maximum = Double.NEGATIVE_INFINITY, mean, m2;
+
+        /** Buffer where to read a block, allocated when first needed, and a view of its values. */
+        private ByteBuffer buffer;
+        private DoubleBuffer values;
+
+        /** Creates an accumulator for the first pass. */
+        Accumulator(final int width, final int height, final int blockWidth, final int blockHeight, final Double noData) {
+            this(width, height, blockWidth, blockHeight, noData, 0, 0, null);
+        }
+
+        /** Creates an accumulator for the second pass. */
+        Accumulator(final Accumulator p, final double offset, final double scale, final int bins) {
+            this(p.width, p.height, p.blockWidth, p.blockHeight, p.noData, offset, scale, new long[bins]);
+        }
+
+        /** Creates an accumulator with the given configuration. */
+        private Accumulator(final int width, final int height, final int blockWidth, final int blockHeight,
+                            final Double noData, final double offset, final double scale, final long[] histogram)
+        {
+            this.width       = width;
+            this.height      = height;
+            this.blockWidth  = blockWidth;
+            this.blockHeight = blockHeight;
+            this.noData      = noData;
+            this.offset      = offset;
+            this.scale       = scale;
+            this.histogram   = histogram;
+            numBlocksX = (width + blockWidth - 1) / blockWidth;
+        }
+
+        /** Returns a new empty accumulator with the same configuration than this accumulator. */
+        Accumulator copy() {
+            return new Accumulator(width, height, blockWidth, blockHeight, noData, offset, scale,
+                                   (histogram != null) ? new long[histogram.length] : null);
+        }
+
+        /** Returns the total number of blocks in the band. */
+        int numBlocks() {
+            return numBlocksX * ((height + blockHeight - 1) / blockHeight);
+        }
+
+        /** Reads the block at the given index and accumulates its values. */
+        void accept(final DataSet source, final int band, final int block) {
+            final int x = (block % numBlocksX) * blockWidth;
+            final int y = (block / numBlocksX) * blockHeight;
+            final int w = Math.min(blockWidth,  width  - x);
+            final int h = Math.min(blockHeight, height - y);
+            try {
+                if (buffer == null) {
+                    buffer = NativeResources.allocate(blockWidth * blockHeight * Double.BYTES).order(ByteOrder.nativeOrder());
+                    values = buffer.asDoubleBuffer();
+                }
+                source.readWindow(band, x, y, w, h, gdalconst.GDT_Float64, buffer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            final int n = w * h;
+            final double nodata = (noData != null) ? noData : Double.NaN;
+            for (int i=0; i<n; i++) {
+                final double v = values.get(i);
+                if (Double.isNaN(v) || v == nodata) {
+                    noDataCount++;
+                } else if (histogram == null) {
+                    if (v < minimum) minimum = v;
+                    if (v > maximum) maximum = v;
+                    final double delta = v - mean;
+                    mean += delta / ++count;
+                    m2   += delta * (v - mean);
+                } else {
+                    histogram[Math.max(0, Math.min(histogram.length - 1, (int) ((v - offset) * scale)))]++;
+                    count++;
+                }
+            }
+        }
+
+        /** Merges the values accumulated by another thread into this accumulator. */
+        void merge(final Accumulator other) {
+            noDataCount += other.noDataCount;
+            if (histogram != null) {
+                for (int i=0; i<histogram.length; i++) {
+                    histogram[i] += other.histogram[i];
+                }
+                count += other.count;
+            } else if (other.count != 0) {
+                minimum = Math.min(minimum, other.minimum);
+                maximum = Math.max(maximum, other.maximum);
+                final long   n     = count + other.count;
+                final double delta = other.mean - mean;
+                mean += delta * other.count / n;
+                m2   += other.m2 + delta * delta * ((double) count * other.count / n);
+                count = n;
+            }
+        }
+    }
+
+    /**
+     * Computes statistics for the given band by reading all blocks in parallel.
+     * In {@link DataSet.Option#CONCURRENT_READS} mode, blocks are also decoded in parallel.
+     *
+     * @param  source  the dataset to read.
+     * @param  band    the band number, starting at 1.
+     * @param  bins    number of bins in the histogram.
+     * @return statistics for the given band.
+     * @throws IOException if the dataset is closed or an error occurred while reading a block.
+     */
+    static BandStatistics compute(final DataSet source, final int band, final int bins) throws IOException {
+        if (bins <= 0) {
+            throw new IllegalArgumentException("Number of bins must be positive.");
+        }
+        final Accumulator config;
+        final String description;
+        final int bitsPerValue;
+        final Dataset data = source.handle();
+        synchronized (data) {
+            source.ensureOpen();
+            final Band b = DataSet.band(data, band, 0);
+            final Double[] noData = new Double[1];
+            b.GetNoDataValue(noData);
+            config = new Accumulator(b.getXSize(), b.getYSize(), b.GetBlockXSize(), b.GetBlockYSize(), noData[0]);
+            bitsPerValue = gdal.GetDataTypeSize(b.getDataType());
+            final String text = b.GetDescription();
+            description = (text != null && !text.trim().isEmpty()) ? text.trim() : null;
+        }
+        try {
+            final Accumulator moments = accumulate(source, band, config);
+            final double range = moments.maximum - moments.minimum;
+            final Accumulator histogram = accumulate(source, band, new Accumulator(moments,
+                    moments.minimum, (range > 0) ? bins / range : 0, bins));
+            return new BandStatistics(description, bitsPerValue, moments, histogram.histogram);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Reads all blocks of the given band in parallel and accumulates their values.
+     */
+    private static Accumulator accumulate(final DataSet source, final int band, final Accumulator config) {
+        return IntStream.range(0, config.numBlocks()).parallel().collect(config::copy,
+                (acc, block) -> acc.accept(source, band, block), Accumulator::merge);
+    }
+
+    /**
+     * Returns the number of valid sample values.
+     *
+     * @return number of values which are neither "no data" nor NaN.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the number of "no data" values, including NaN.
+     *
+     * @return number of missing values.
+     */
+    public long getNoDataCount() {
+        return noDataCount;
+    }
+
+    /**
+     * Returns the mean of valid values.
+     *
+     * @return the mean, or NaN if there is no valid value.
+     */
+    public double getMean() {
+        return (count != 0) ? mean : Double.NaN;
+    }
+
+    /**
+     * Returns the sample standard deviation of valid values.
+     *
+     * @return the standard deviation, or NaN if there is less than two valid values.
+     */
+    public double getStandardDeviation() {
+        return standardDeviation;
+    }
+
+    /**
+     * Returns the number of values in bins of equal width between the {@linkplain #getMinValue() minimum}
+     * and {@linkplain #getMaxValue() maximum} values inclusive.
+     *
+     * @return a copy of the histogram.
+     */
+    public long[] getHistogram() {
+        return histogram.clone();
+    }
+
+    /** Returns the smallest valid value, or {@code null} if none. */
+    @Override
+    public Double getMinValue() {
+        return (count != 0) ? minimum : null;
+    }
+
+    /** Returns the largest valid value, or {@code null} if none. */
+    @Override
+    public Double getMaxValue() {
+        return (count != 0) ? maximum : null;
+    }
+
+    /** Returns the number of bits per value in the band native type. */
+    @Override
+    public Integer getBitsPerValue() {
+        return bitsPerValue;
+    }
+
+    /** Returns the band description given by GDAL, or {@code null} if none. */
+    @Override
+    public InternationalString getDescriptor() {
+        return (description != null) ? new Literal(description) : null;
+    }
+
+    /** Unimplemented methods. */
+    @Override public MemberName              getSequenceIdentifier()       {return null;}
+    @Override public Double                  getPeakResponse()             {return null;}
+    @Override public Unit<Length>            getUnits()                    {return null;}
+    @Override public Integer                 getToneGradation()            {return null;}
+    @Override public Double                  getScaleFactor()              {return null;}
+    @Override public Double                  getOffset()                   {return null;}
+    @Override public BandDefinition          getBandBoundaryDefinition()   {return null;}
+    @Override public Double                  getNominalSpatialResolution() {return null;}
+    @Override public TransferFunctionType    getTransferFunctionType()     {return null;}
+    @Override public PolarizationOrientation getTransmittedPolarization()  {return null;}
+    @Override public PolarizationOrientation getDetectedPolarization()     {return null;}
+
+    /**
+     * Returns a string representation for debugging purpose.
+     */
+    @Override
+    public String toString() {
+        return "BandStatistics[min=" + minimum + ", max=" + maximum + ", mean=" + getMean()
+                + ", stddev=" + standardDeviation + ", count=" + count + ", noData=" + noDataCount + ']';
+    }
+}
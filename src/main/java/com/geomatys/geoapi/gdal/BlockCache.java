@@ -0,0 +1,295 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+
+/**
+ * A cache of decoded raster blocks shared by all {@link DataSet} instances.
+ * Blocks are stored in direct (off-heap) buffers and identified by the file, band, overview level
+ * and block indices. When many datasets are opened on the same file, they share the same blocks
+ * instead of asking GDAL to decompress them again.
+ *
+ * <p>The cache enforces a maximal amount of bytes. When that budget is exceeded,
+ * the least recently used blocks are discarded. The blocks of the {@linkplain #getDefault() default cache}
+ * are counted in the {@linkplain NativeResources#getAllocated() allocated native memory} until discarded,
+ * and {@link NativeResources} discards some of them when the memory budget is exceeded.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final class BlockCache {
+    /**
+     * The cache shared by all datasets. Default capacity is 64 megabytes.
+     */
+    private static final BlockCache DEFAULT = new BlockCache(64L << 20, true);
+
+    /**
+     * The cached blocks, in access order (least recently used first).
+     */
+    private final LinkedHashMap<Key,ByteBuffer> blocks;
+
+    /**
+     * Maximal number of bytes to keep in this cache.
+     */
+    private long capacity;
+
+    /**
+     * Number of bytes currently used by the blocks in this cache.
+     */
+    private long size;
+
+    /**
+     * Number of times that a block has been found or not found in this cache.
+     */
+    private long hits, misses;
+
+    /**
+     * Whether the blocks have been allocated by {@link NativeResources#allocateReserved(int)}
+     * and shall be {@linkplain NativeResources#release(long) released} when discarded.
+     */
+    private final boolean accounted;
+
+    /**
+     * Creates a new cache of the given capacity for blocks not counted by {@link NativeResources}.
+     *
+     * @param  capacity  maximal number of bytes to keep in the cache.
+     */
+    BlockCache(final long capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * Creates a new cache of the given capacity.
+     *
+     * @param  capacity   maximal number of bytes to keep in the cache.
+     * @param  accounted  whether blocks are counted by {@link NativeResources} until discarded.
+     */
+    private BlockCache(final long capacity, final boolean accounted) {
+        this.capacity  = capacity;
+        this.accounted = accounted;
+        blocks = new LinkedHashMap<>(256, 0.75f, true);
+    }
+
+    /**
+     * Returns the cache shared by all datasets.
+     *
+     * @return the process-wide block cache.
+     */
+    public static BlockCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Identification of a block in a raster file.
+     */
+    static final class Key {
+        /** The absolute path of the file. */
+        private final String file;
+
+        /** The file modification time, for distinguishing different versions of the same file. */
+        private final long modified;
+
+        /** Band number (starting at 1), overview level (0 for full resolution) and block indices. */
+        private final int band, level, blockX, blockY;
+
+        /**
+         * Creates a new key for the given block.
+         *
+         * @param  file      the absolute path of the file.
+         * @param  modified  the file modification time, or 0 if unknown.
+         * @param  band      the band number, starting at 1.
+         * @param  level     0 for full resolution, or the overview index + 1.
+         * @param  blockX    column index of the block.
+         * @param  blockY    row index of the block.
+         */
+        Key(final String file, final long modified, final int band, final int level, final int blockX, final int blockY) {
+            this.file     = file;
+            this.modified = modified;
+            this.band     = band;
+            this.level    = level;
+            this.blockX   = blockX;
+            this.blockY   = blockY;
+        }
+
+        /** Compares this key with the given object for equality. */
+        @Override public boolean equals(final Object other) {
+            if (other instanceof Key) {
+                final Key k = (Key) other;
+                return band == k.band && level == k.level && blockX == k.blockX && blockY == k.blockY
+                        && modified == k.modified && file.equals(k.file);
+            }
+            return false;
+        }
+
+        /** Returns a hash code value for this key. */
+        @Override public int hashCode() {
+            return file.hashCode() + 31*(Long.hashCode(modified) + 31*(band + 31*(level + 31*(blockX + 31*blockY))));
+        }
+
+        /** String representation for debugging purpose. */
+        @Override public String toString() {
+            return file + " band " + band + " level " + level + " block (" + blockX + ", " + blockY + ')';
+        }
+    }
+
+    /**
+     * Returns the cached block for the given key, or {@code null} if none.
+     * The returned buffer is shared; callers shall not modify its content.
+     *
+     * @param  key  identification of the block.
+     * @return the cached block, or {@code null} if none.
+     */
+    synchronized ByteBuffer get(final Key key) {
+        final ByteBuffer block = blocks.get(key);
+        if (block != null) hits++;
+        else misses++;
+        return block;
+    }
+
+    /**
+     * Adds the given block in the cache, then discards the least recently used blocks if the capacity is exceeded.
+     * If another thread added a block for the same key in the meantime, the existing block is kept and returned.
+     * For the {@linkplain #getDefault() default cache}, the block shall have been allocated by
+     * {@link NativeResources#allocateReserved(int)} and this cache becomes responsible for its release,
+     * including when the block is not retained.
+     *
+     * @param  key    identification of the block.
+     * @param  block  the decoded block, from position 0 to the buffer limit.
+     * @return the block to use, either {@code block} or a block added concurrently.
+     */
+    synchronized ByteBuffer put(final Key key, final ByteBuffer block) {
+        final ByteBuffer existing = blocks.get(key);
+        if (existing != null) {
+            discarded(block);
+            return existing;
+        }
+        final int length = block.limit();
+        if (length <= capacity) {
+            blocks.put(key, block);
+            size += length;
+            evict(size - capacity);
+        } else {
+            discarded(block);
+        }
+        return block;
+    }
+
+    /**
+     * Discards the least recently used blocks until the given amount of bytes has been released.
+     *
+     * @param  bytes  minimal number of bytes to release. Nothing is done if zero or negative.
+     */
+    private void evict(long bytes) {
+        final Iterator<ByteBuffer> it = blocks.values().iterator();
+        while (bytes > 0 && it.hasNext()) {
+            final ByteBuffer block = it.next();
+            final int length = block.limit();
+            size  -= length;
+            bytes -= length;
+            it.remove();
+            discarded(block);
+        }
+    }
+
+    /**
+     * Invoked when a block is no longer referenced by this cache. The memory is no longer counted
+     * even if a caller still uses the block, because the cache does not know when callers are done.
+     */
+    private void discarded(final ByteBuffer block) {
+        if (accounted) {
+            NativeResources.release(block.capacity());
+        }
+    }
+
+    /**
+     * Discards the least recently used blocks for releasing at least the given amount of native memory.
+     * This is invoked by {@link NativeResources} when the memory budget is exceeded.
+     *
+     * @param  bytes  minimal number of bytes to release.
+     */
+    synchronized void release(final long bytes) {
+        evict(bytes);
+    }
+
+    /**
+     * Returns the maximal number of bytes to keep in this cache.
+     *
+     * @return the cache capacity in bytes.
+     */
+    public synchronized long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets the maximal number of bytes to keep in this cache.
+     * If the new capacity is smaller than current size, the least recently used blocks are discarded.
+     *
+     * @param  capacity  the new cache capacity in bytes.
+     */
+    public synchronized void setCapacity(final long capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity shall not be negative.");
+        }
+        this.capacity = capacity;
+        evict(size - capacity);
+    }
+
+    /**
+     * Returns the number of bytes currently used by the cached blocks.
+     *
+     * @return cache size in bytes.
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of requests for which a block was found in the cache.
+     *
+     * @return number of cache hits since this cache creation.
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of requests for which a block had to be decoded by GDAL.
+     *
+     * @return number of cache misses since this cache creation.
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Discards all blocks in this cache. The hit and miss counters are not reset.
+     */
+    public synchronized void clear() {
+        evict(Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns a string representation of this cache for debugging purpose.
+     */
+    @Override
+    public synchronized String toString() {
+        return "BlockCache[" + blocks.size() + " blocks, " + size + " / " + capacity
+                + " bytes, hits=" + hits + ", misses=" + misses + ']';
+    }
+}
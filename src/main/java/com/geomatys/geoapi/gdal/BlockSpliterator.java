@@ -0,0 +1,291 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Spliterator;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import org.gdal.gdal.Band;
+import org.gdal.gdal.Dataset;
+import org.gdal.gdalconst.gdalconst;
+
+
+/**
+ * Iterator over the sample values of a band, reading the band one GDAL block at a time.
+ * Each spliterator covers a range of block indices, where blocks are numbered in row-major order.
+ * Splits are always done on block boundaries, and each split allocates its own block-sized buffer
+ * when it reads its first block.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ *
+ * @see DataSet#doubles(int)
+ * @see DataSet#ints(int)
+ */
+abstract class BlockSpliterator {
+    /**
+     * The dataset from which to read blocks.
+     */
+    private final DataSet source;
+
+    /**
+     * The band to read, numbered from 1.
+     */
+    private final int band;
+
+    /**
+     * The band size, block size and number of blocks per row.
+     */
+    private final int width, height, blockWidth, blockHeight, numBlocksX;
+
+    /**
+     * Index of the next block to read (inclusive) and of the last block to read (exclusive).
+     */
+    private int block, end;
+
+    /**
+     * The buffer where the current block is read, or {@code null} if not yet allocated.
+     */
+    ByteBuffer buffer;
+
+    /**
+     * Index of the next value to return in the current block, and number of values in that block.
+     */
+    int position, length;
+
+    /**
+     * Creates a spliterator over all blocks of the given band.
+     *
+     * @param  source  the dataset from which to read blocks.
+     * @param  band    the band to read, numbered from 1.
+     * @throws IOException if the dataset is closed.
+     */
+    BlockSpliterator(final DataSet source, final int band) throws IOException {
+        this.source = source;
+        this.band   = band;
+        final Dataset data = source.handle();
+        synchronized (data) {
+            source.ensureOpen();
+            final Band b = DataSet.band(data, band, 0);
+            width       = b.getXSize();
+            height      = b.getYSize();
+            blockWidth  = b.GetBlockXSize();
+            blockHeight = b.GetBlockYSize();
+        }
+        numBlocksX = (width + blockWidth - 1) / blockWidth;
+        end = numBlocksX * ((height + blockHeight - 1) / blockHeight);
+    }
+
+    /**
+     * Creates a spliterator over the given range of blocks of the same band than the given spliterator.
+     *
+     * @param  parent  the spliterator being split.
+     * @param  start   index of the first block (inclusive).
+     * @param  end     index of the last block (exclusive).
+     */
+    BlockSpliterator(final BlockSpliterator parent, final int start, final int end) {
+        source      = parent.source;
+        band        = parent.band;
+        width       = parent.width;
+        height      = parent.height;
+        blockWidth  = parent.blockWidth;
+        blockHeight = parent.blockHeight;
+        numBlocksX  = parent.numBlocksX;
+        block       = start;
+        this.end    = end;
+    }
+
+    /**
+     * Splits this spliterator in the middle of its remaining blocks. This spliterator is modified
+     * for covering only the blocks after the split point, and a new spliterator is returned for
+     * the blocks before. A spliterator having a partially consumed block is not split,
+     * for preserving encounter order.
+     *
+     * @return spliterator for the first half of remaining blocks, or {@code null} if this spliterator can not be split.
+     */
+    final BlockSpliterator split() {
+        final int start = block;
+        final int mid = (start + end) >>> 1;
+        if (mid <= start || position < length) {
+            return null;
+        }
+        block = mid;
+        return create(start, mid);
+    }
+
+    /**
+     * Reads the next block in the buffer.
+     *
+     * @return whether a block has been read, or {@code false} if there is no more block.
+     */
+    final boolean nextBlock() {
+        if (block >= end) {
+            return false;
+        }
+        final int x = (block % numBlocksX) * blockWidth;
+        final int y = (block / numBlocksX) * blockHeight;
+        final int w = Math.min(blockWidth,  width  - x);
+        final int h = Math.min(blockHeight, height - y);
+        try {
+            if (buffer == null) {
+                buffer = NativeResources.allocate(blockWidth * blockHeight * sampleSize()).order(ByteOrder.nativeOrder());
+                createView();
+            }
+            source.readWindow(band, x, y, w, h, dataType(), buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        block++;
+        position = 0;
+        length   = w * h;
+        return true;
+    }
+
+    /**
+     * Returns the exact number of values remaining, computed from the size of the remaining blocks.
+     *
+     * @return number of values not yet consumed.
+     */
+    public final long estimateSize() {
+        long n = length - position;
+        final int numBlocksY = (height + blockHeight - 1) / blockHeight;
+        for (int i=block; i<end; i++) {
+            final int bx = i % numBlocksX;
+            final int by = i / numBlocksX;
+            n += (long) (bx == numBlocksX - 1 ? width  - bx * blockWidth  : blockWidth)
+                      * (by == numBlocksY - 1 ? height - by * blockHeight : blockHeight);
+        }
+        return n;
+    }
+
+    /**
+     * Returns the characteristics of this spliterator.
+     *
+     * @return ordered, sized, non-null and immutable.
+     */
+    public final int characteristics() {
+        return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+    }
+
+    /** Creates a spliterator over the given range of blocks of the same band. */
+    abstract BlockSpliterator create(int start, int end);
+
+    /** Returns the size in bytes of the values in the buffer. */
+    abstract int sampleSize();
+
+    /** Returns the GDAL type of values in the buffer. */
+    abstract int dataType();
+
+    /** Creates a view of the buffer for the subclass value type. */
+    abstract void createView();
+
+    /**
+     * Spliterator over sample values converted to {@code double}.
+     */
+    static final class Doubles extends BlockSpliterator implements Spliterator.OfDouble {
+        /** View of the buffer as {@code double} values. */
+        private DoubleBuffer values;
+
+        /** Creates a spliterator over all blocks of the given band. */
+        Doubles(final DataSet source, final int band) throws IOException {
+            super(source, band);
+        }
+
+        /** Creates a spliterator over the given range of blocks. */
+        private Doubles(final Doubles parent, final int start, final int end) {
+            super(parent, start, end);
+        }
+
+        @Override Doubles create(int start, int end) {return new Doubles(this, start, end);}
+        @Override int     sampleSize()               {return Double.BYTES;}
+        @Override int     dataType()                 {return gdalconst.GDT_Float64;}
+        @Override void    createView()               {values = buffer.asDoubleBuffer();}
+
+        @Override
+        public Spliterator.OfDouble trySplit() {
+            return (Doubles) split();
+        }
+
+        @Override
+        public boolean tryAdvance(final DoubleConsumer action) {
+            while (position >= length) {
+                if (!nextBlock()) return false;
+            }
+            action.accept(values.get(position++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(final DoubleConsumer action) {
+            do {
+                while (position < length) {
+                    action.accept(values.get(position++));
+                }
+            } while (nextBlock());
+        }
+    }
+
+    /**
+     * Spliterator over sample values converted to {@code int}.
+     */
+    static final class Ints extends BlockSpliterator implements Spliterator.OfInt {
+        /** View of the buffer as {@code int} values. */
+        private IntBuffer values;
+
+        /** Creates a spliterator over all blocks of the given band. */
+        Ints(final DataSet source, final int band) throws IOException {
+            super(source, band);
+        }
+
+        /** Creates a spliterator over the given range of blocks. */
+        private Ints(final Ints parent, final int start, final int end) {
+            super(parent, start, end);
+        }
+
+        @Override Ints create(int start, int end) {return new Ints(this, start, end);}
+        @Override int  sampleSize()               {return Integer.BYTES;}
+        @Override int  dataType()                 {return gdalconst.GDT_Int32;}
+        @Override void createView()               {values = buffer.asIntBuffer();}
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            return (Ints) split();
+        }
+
+        @Override
+        public boolean tryAdvance(final IntConsumer action) {
+            while (position >= length) {
+                if (!nextBlock()) return false;
+            }
+            action.accept(values.get(position++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(final IntConsumer action) {
+            do {
+                while (position < length) {
+                    action.accept(values.get(position++));
+                }
+            } while (nextBlock());
+        }
+    }
+}
@@ -13,6 +13,10 @@
  */
 package com.geomatys.geoapi.gdal;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.measure.Unit;
+import javax.measure.quantity.Angle;
 import org.gdal.osr.SpatialReference;
 import org.opengis.metadata.Identifier;
 import org.opengis.metadata.extent.Extent;
@@ -38,6 +42,30 @@ import org.opengis.util.InternationalString;
  * @see <a href="http://gdal.org/java/org/gdal/osr/SpatialReference.html">GDAL SpatialReference</a>
  */
 class CRS extends ReferencingObject implements CoordinateReferenceSystem, CoordinateSystem, Identifier {
+    /**
+     * Maximal number of coordinate reference systems to keep in the {@linkplain #CACHE cache}.
+     */
+    private static final int CACHE_SIZE = 64;
+
+    /**
+     * Coordinate reference systems created from Well Known Texts. Since many files share the same few
+     * projections, caching avoid parsing the same WKT again and allows equal CRS to share the same instance.
+     * Unsupported WKT are cached as {@link #UNSUPPORTED} for avoiding to parse them again for each file.
+     * The cache is bounded: the least recently used entry is discarded when the maximal size is reached.
+     * All accesses shall be synchronized on the map.
+     */
+    @SuppressWarnings("serial")
+    private static final Map<String,Object> CACHE = new LinkedHashMap<String,Object>(CACHE_SIZE * 4/3 + 1, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(final Map.Entry<String,Object> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Sentinel value stored in the {@linkplain #CACHE cache} for WKT which can not be parsed.
+     */
+    private static final Object UNSUPPORTED = new Object();
+
     /**
      * The Well Known Text (WKT) definition for this coordinate reference system, in OGC 01-009 syntax.
      */
@@ -55,37 +83,95 @@ class CRS extends ReferencingObject implements CoordinateReferenceSystem, Coordi
      * @param  kind  the kind of CRS to construct: {@code "GEOGCS"}, {@code "PROJCS"}, <var>etc.</var>
      * @param  wkt   the Well Known Text used for constructing the GDAL {@code SpatialReference}.
      * @param  srs   the GDAL spatial reference system information.
+     * @param  unit  the unit of measurement of all axes.
      */
-    private CRS(final String kind, final String wkt, final SpatialReference srs) {
-        super(srs.GetAttrValue(kind));
+    private CRS(final String kind, final String wkt, final SpatialReference srs, final Unit<?> unit) {
+        super(srs.GetAttrValue(kind), IdentificationCache.lookup(wkt, srs));
         this.wkt = wkt;
         axes = new Axis[] {
-            new Axis(srs, kind, 0),
-            new Axis(srs, kind, 1)
+            Axis.create(srs, kind, 0, unit),
+            Axis.create(srs, kind, 1, unit)
         };
     }
 
     /**
-     * Creates a new coordinate reference system.
+     * Returns the coordinate reference system for the given Well Known Text.
+     * Instances are cached, so this method returns the same instance for the same WKT.
      *
-     * @param  srs  the GDAL spatial reference system information.
-     * @return the Well Known Text (WKT) given by GDAL, or {@code null} if unsupported.
+     * @param  wkt  the Well Known Text (WKT) given by GDAL.
+     * @return the coordinate reference system, or {@code null} if unsupported.
      */
     static CRS create(final String wkt) {
-        if (wkt != null && !wkt.isEmpty()) {
-            final SpatialReference srs = new SpatialReference(wkt);
-            try {
-                if (srs.IsGeographic() != 0) {
-                    return new Geographic(wkt, srs);
-                } else if (srs.IsProjected() != 0) {
-                    return new Projected(wkt, srs);
-                } else {
-                    // TODO: we could also check IsGeocentric(), IsLocal() and IsCompound().
-                }
-            } finally {
-                srs.delete();
+        if (wkt == null || wkt.isEmpty()) {
+            return null;
+        }
+        Object cached;
+        synchronized (CACHE) {
+            cached = CACHE.get(wkt);
+        }
+        final Metrics metrics = DataSet.getMetrics();
+        metrics.cacheAccess(Metrics.Cache.CRS, cached != null);
+        if (cached == null) {
+            final long start = System.nanoTime();
+            final CRS crs = parse(wkt);
+            metrics.record(Metrics.Operation.CRS_PARSE, System.nanoTime() - start, 0);
+            synchronized (CACHE) {
+                cached = CACHE.putIfAbsent(wkt, (crs != null) ? crs : UNSUPPORTED);
+            }
+            if (cached == null) {
+                return crs;
             }
         }
+        return (cached != UNSUPPORTED) ? (CRS) cached : null;
+    }
+
+    /**
+     * Returns whether the given coordinate reference systems are the same. If both CRS have been identified,
+     * their identifiers are compared. Otherwise this method compares their Well Known Texts ignoring white spaces.
+     * Callers should use this method instead of comparing WKT strings, which may differ for the same CRS.
+     *
+     * @param  a  the first CRS to compare, or {@code null}.
+     * @param  b  the second CRS to compare, or {@code null}.
+     * @return whether the two CRS are the same.
+     */
+    static boolean equivalent(final CoordinateReferenceSystem a, final CoordinateReferenceSystem b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null) {
+            return false;
+        }
+        if (a instanceof CRS && b instanceof CRS) {
+            final AuthorityCode ia = ((CRS) a).identifier();
+            final AuthorityCode ib = ((CRS) b).identifier();
+            if (ia != null && ib != null) {
+                return ia.equals(ib);
+            }
+        }
+        final String wa = a.toWKT();
+        final String wb = b.toWKT();
+        return wa != null && wb != null && IdentificationCache.normalize(wa).equals(IdentificationCache.normalize(wb));
+    }
+
+    /**
+     * Creates a new coordinate reference system by parsing the given WKT with GDAL.
+     *
+     * @param  wkt  the Well Known Text (WKT) given by GDAL.
+     * @return the coordinate reference system, or {@code null} if unsupported.
+     */
+    private static CRS parse(final String wkt) {
+        final SpatialReference srs = new SpatialReference(wkt);
+        try {
+            if (srs.IsGeographic() != 0) {
+                return new Geographic(wkt, srs);
+            } else if (srs.IsProjected() != 0) {
+                return new Projected(wkt, srs);
+            } else {
+                // TODO: we could also check IsGeocentric(), IsLocal() and IsCompound().
+            }
+        } finally {
+            srs.delete();
+        }
         return null;
     }
 
@@ -93,13 +179,22 @@ class CRS extends ReferencingObject implements CoordinateReferenceSystem, Coordi
      * Geographic case of GDAL coordinate reference system.
      */
     private static final class Geographic extends CRS implements GeographicCRS, EllipsoidalCS {
+        /** The datum with its ellipsoid and prime meridian. */
+        private final Datum datum;
+
         /** Creates a new geographic CRS for the given GDAL reference system. */
         Geographic(final String wkt, final SpatialReference srs) {
-            super("GEOGCS", wkt, srs);
+            this(wkt, srs, Axis.angularUnit(srs.GetAngularUnits()));
+        }
+
+        /** Creates a new geographic CRS with the given angular unit. */
+        private Geographic(final String wkt, final SpatialReference srs, final Unit<Angle> unit) {
+            super("GEOGCS", wkt, srs, unit);
+            datum = new Datum(srs, unit);
         }
 
         @Override public EllipsoidalCS getCoordinateSystem() {return this;}
-        @Override public GeodeticDatum getDatum()            {return null;}     // TODO
+        @Override public GeodeticDatum getDatum()            {return datum;}
     }
 
     /**
@@ -109,16 +204,25 @@ class CRS extends ReferencingObject implements CoordinateReferenceSystem, Coordi
         /** The coordinate reference system on which this projected CRS is based. */
         private final Geographic base;
 
+        /** The map projection from the base CRS to this CRS. */
+        private final Conversion conversion;
+
         /** Creates a new projected CRS for the given GDAL reference system. */
         Projected(final String wkt, final SpatialReference srs) {
-            super("PROJCS", wkt, srs);
-            base = new Geographic(null, srs);           // TODO: need a non-null WKT.
+            super("PROJCS", wkt, srs, Axis.linearUnit(srs.GetLinearUnits()));
+            final SpatialReference geographic = srs.CloneGeogCS();
+            try {
+                base = new Geographic(geographic.ExportToWkt(), geographic);
+            } finally {
+                geographic.delete();
+            }
+            conversion = new Conversion(srs.GetAttrValue("PROJECTION"), base, this);
         }
 
         @Override public CartesianCS   getCoordinateSystem()   {return this;}
         @Override public GeodeticDatum getDatum()              {return base.getDatum();}
         @Override public GeographicCRS getBaseCRS()            {return base;}
-        @Override public Projection    getConversionFromBase() {return null;}       // TODO
+        @Override public Projection    getConversionFromBase() {return conversion;}
     }
 
     @Override public final InternationalString  getScope()             {return null;}
@@ -0,0 +1,355 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.awt.geom.Rectangle2D;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.opengis.metadata.Metadata;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.util.FactoryException;
+
+
+/**
+ * A spatial index of the footprints of many raster files, for finding the files which intersect an area.
+ * Footprints are computed from the grid size, "grid to CRS" transform and CRS of each file, then transformed
+ * to the CRS of this catalog if different. Files can be added from any thread, for example by a {@link Harvester}:
+ *
+ * <blockquote><pre>Catalog catalog = new Catalog(crs);
+ *harvester.harvest(directory, null, catalog::add);</pre></blockquote>
+ *
+ * <p>Footprints are stored in a Sort-Tile-Recursive (STR) packed R-tree backed by primitive arrays.
+ * The tree is built on the first search after files have been added, then searches are lock-free
+ * and can run concurrently. Adding files after searches is allowed but causes the tree to be rebuilt,
+ * so it is more efficient to add all files before the first search.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final class Catalog {
+    /**
+     * Maximal number of children per node of the R-tree.
+     */
+    private static final int NODE_CAPACITY = 16;
+
+    /**
+     * The coordinate reference system of footprints and search areas,
+     * or {@code null} for using the CRS of each file without transformation.
+     */
+    private final CoordinateReferenceSystem crs;
+
+    /**
+     * The footprints of all files as (<var>x</var><sub>min</sub>, <var>y</var><sub>min</sub>,
+     * <var>x</var><sub>max</sub>, <var>y</var><sub>max</sub>) tuples, in the order files were added.
+     * Only the {@code 4*count} first values are valid.
+     */
+    private double[] bounds;
+
+    /**
+     * The files in the order they were added. Only the {@code count} first elements are valid.
+     */
+    private Path[] files;
+
+    /**
+     * Number of files in this catalog.
+     */
+    private int count;
+
+    /**
+     * The R-tree of all files added so far, or {@code null} if it needs to be built.
+     */
+    private volatile Tree tree;
+
+    /**
+     * A packed R-tree. Nodes of all levels are stored in the same arrays, starting with leaves
+     * (which are the files footprints) and ending with the root. Children of a node are always
+     * consecutive in the level below, so only the index of the first child needs to be stored.
+     */
+    private static final class Tree {
+        /** Bounds of all nodes as (xmin, ymin, xmax, ymax) tuples. */
+        private final double[] nodes;
+
+        /** For leaves, index of the file. For other nodes, index of the first child. */
+        private final int[] pointers;
+
+        /** Index after the last node of each level, with leaves at level 0. */
+        private final int[] levelEnds;
+
+        /** The files, shared with the catalog. Elements added after the tree was built are ignored. */
+        final Path[] files;
+
+        /**
+         * Builds a tree for the given footprints. The given arrays are not modified.
+         *
+         * @param  bounds  the footprints as (xmin, ymin, xmax, ymax) tuples.
+         * @param  files   the files of each footprint.
+         * @param  count   number of valid footprints.
+         */
+        Tree(final double[] bounds, final Path[] files, final int count) {
+            this.files = files;
+            int total = count;
+            int numLevels = 1;
+            for (int n = count; n > 1; numLevels++) {
+                n = (n + NODE_CAPACITY - 1) / NODE_CAPACITY;
+                total += n;
+            }
+            nodes     = Arrays.copyOf(bounds, total * 4);
+            pointers  = new int[total];
+            levelEnds = new int[numLevels];
+            for (int i=0; i<count; i++) {
+                pointers[i] = i;
+            }
+            int start = 0, end = count;
+            for (int level=0; ; level++) {
+                sortTiles(start, end);
+                levelEnds[level] = end;
+                if (end - start <= 1) break;
+                int p = end;
+                for (int i=start; i<end; i += NODE_CAPACITY, p++) {
+                    final int last = Math.min(i + NODE_CAPACITY, end);
+                    double xmin = Double.POSITIVE_INFINITY, ymin = Double.POSITIVE_INFINITY;
+                    double xmax = Double.NEGATIVE_INFINITY, ymax = Double.NEGATIVE_INFINITY;
+                    for (int c=i; c<last; c++) {
+                        xmin = Math.min(xmin, nodes[c*4    ]);
+                        ymin = Math.min(ymin, nodes[c*4 + 1]);
+                        xmax = Math.max(xmax, nodes[c*4 + 2]);
+                        ymax = Math.max(ymax, nodes[c*4 + 3]);
+                    }
+                    nodes[p*4    ] = xmin;
+                    nodes[p*4 + 1] = ymin;
+                    nodes[p*4 + 2] = xmax;
+                    nodes[p*4 + 3] = ymax;
+                    pointers[p] = i;
+                }
+                start = end;
+                end   = p;
+            }
+        }
+
+        /**
+         * Reorders the nodes in the given range using the Sort-Tile-Recursive algorithm: nodes are sorted
+         * by the <var>x</var> coordinate of their center, divided in vertical slices of about √(N/M) tiles,
+         * and nodes in each slice are sorted by the <var>y</var> coordinate of their center.
+         * Consecutive groups of {@value #NODE_CAPACITY} nodes then form compact tiles.
+         */
+        private void sortTiles(final int start, final int end) {
+            final int n = end - start;
+            if (n <= NODE_CAPACITY) {
+                return;
+            }
+            final int[]    order = new int[n];
+            final double[] keys  = new double[n];
+            for (int i=0; i<n; i++) {
+                final int p = (start + i) * 4;
+                order[i] = i;
+                keys [i] = nodes[p] + nodes[p+2];
+            }
+            sort(order, keys, 0, n);
+            final int numTiles  = (n + NODE_CAPACITY - 1) / NODE_CAPACITY;
+            final int sliceSize = (int) Math.ceil(Math.sqrt(numTiles)) * NODE_CAPACITY;
+            for (int i=0; i<n; i++) {
+                final int p = (start + i) * 4;
+                keys[i] = nodes[p+1] + nodes[p+3];
+            }
+            for (int i=0; i<n; i += sliceSize) {
+                sort(order, keys, i, Math.min(i + sliceSize, n));
+            }
+            final double[] sortedNodes    = new double[n * 4];
+            final int[]    sortedPointers = new int[n];
+            for (int i=0; i<n; i++) {
+                final int src = start + order[i];
+                System.arraycopy(nodes, src * 4, sortedNodes, i * 4, 4);
+                sortedPointers[i] = pointers[src];
+            }
+            System.arraycopy(sortedNodes,    0, nodes,    start * 4, n * 4);
+            System.arraycopy(sortedPointers, 0, pointers, start,     n);
+        }
+
+        /**
+         * Sorts the given range of {@code order} by increasing values of {@code keys[order[i]]}.
+         * This is a quicksort with median-of-three pivot, falling back on insertion sort for small ranges.
+         */
+        private static void sort(final int[] order, final double[] keys, int lo, int hi) {
+            while (hi - lo > 12) {
+                final int mid = (lo + hi) >>> 1;
+                final double a = keys[order[lo]], b = keys[order[mid]], c = keys[order[hi - 1]];
+                final double pivot = (a < b) ? (b < c ? b : Math.max(a, c)) : (a < c ? a : Math.max(b, c));
+                int i = lo, j = hi - 1;
+                while (i <= j) {
+                    while (keys[order[i]] < pivot) i++;
+                    while (keys[order[j]] > pivot) j--;
+                    if (i <= j) {
+                        final int t = order[i];
+                        order[i++] = order[j];
+                        order[j--] = t;
+                    }
+                }
+                if (j - lo < hi - i) {          // Recurse on the smaller part for bounding the stack depth.
+                    sort(order, keys, lo, j + 1);
+                    lo = i;
+                } else {
+                    sort(order, keys, i, hi);
+                    hi = j + 1;
+                }
+            }
+            for (int i=lo+1; i<hi; i++) {
+                final int v = order[i];
+                final double k = keys[v];
+                int j = i;
+                while (j > lo && keys[order[j-1]] > k) {
+                    order[j] = order[j-1];
+                    j--;
+                }
+                order[j] = v;
+            }
+        }
+
+        /**
+         * Adds to the given list the files whose footprint intersects the given area.
+         */
+        void search(final double xmin, final double ymin, final double xmax, final double ymax, final List<Path> results) {
+            int level = levelEnds.length - 1;
+            if (levelEnds[level] == 0) {
+                return;                                         // Empty tree.
+            }
+            final int[] stack  = new int[(level + 1) * NODE_CAPACITY];
+            final int[] levels = new int[stack.length];
+            int size = 0;
+            stack[size] = levelEnds[level] - 1;                 // The root.
+            levels[size++] = level;
+            while (size != 0) {
+                final int p = stack[--size];
+                level = levels[size];
+                if (nodes[p*4] > xmax || nodes[p*4 + 1] > ymax || nodes[p*4 + 2] < xmin || nodes[p*4 + 3] < ymin) {
+                    continue;
+                }
+                if (level == 0) {
+                    results.add(files[pointers[p]]);
+                } else {
+                    final int first = pointers[p];
+                    final int last  = Math.min(first + NODE_CAPACITY, levelEnds[level - 1]);
+                    for (int c = last; --c >= first;) {        // Reverse order for popping children in order.
+                        stack [size]   = c;
+                        levels[size++] = level - 1;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates an empty catalog for footprints in the given coordinate reference system.
+     *
+     * If the given CRS is {@code null}, then all files are assumed to use the same CRS
+     * and their footprints are stored without transformation.
+     *
+     * @param  crs  the coordinate reference system of footprints and search areas, or {@code null}.
+     */
+    public Catalog(final CoordinateReferenceSystem crs) {
+        this.crs = crs;
+        bounds = new double[64];
+        files  = new Path[16];
+    }
+
+    /**
+     * Returns the coordinate reference system of footprints and search areas.
+     *
+     * @return the catalog coordinate reference system, or {@code null} if footprints are not transformed.
+     */
+    public CoordinateReferenceSystem getCoordinateReferenceSystem() {
+        return crs;
+    }
+
+    /**
+     * Adds a file with the given metadata in this catalog. The metadata shall have been created by
+     * {@link DataSet#getMetadata()} or {@link MetadataIndex#getMetadata(Path)}. The footprint of
+     * the file is computed from the metadata and transformed to the catalog CRS if needed.
+     * The file shall have a CRS, even if the catalog CRS is {@code null}.
+     *
+     * @param  file      the file to add.
+     * @param  metadata  metadata of the file.
+     * @throws IllegalArgumentException if the metadata has not been created by this package,
+     *         has no CRS, or the footprint can not be transformed to the catalog CRS.
+     */
+    public void add(final Path file, final Metadata metadata) {
+        if (!(metadata instanceof GridGeometry)) {
+            throw new IllegalArgumentException("Unsupported metadata implementation.");
+        }
+        final Rectangle2D footprint;
+        try {
+            footprint = ((GridGeometry) metadata).getFootprint(crs);
+        } catch (FactoryException | TransformException e) {
+            throw new IllegalArgumentException("Can not compute the footprint of " + file + ": " + e.getMessage(), e);
+        }
+        if (footprint == null) {
+            throw new IllegalArgumentException("The coordinate reference system of " + file + " is unknown.");
+        }
+        add(file, footprint);
+    }
+
+    /**
+     * Adds a file with the given footprint in this catalog.
+     *
+     * @param  file       the file to add.
+     * @param  footprint  bounds of the file in the catalog CRS.
+     */
+    public synchronized void add(final Path file, final Rectangle2D footprint) {
+        if (count == files.length) {
+            files  = Arrays.copyOf(files,  count * 2);
+            bounds = Arrays.copyOf(bounds, count * 8);
+        }
+        final int p = count * 4;
+        bounds[p    ] = footprint.getMinX();
+        bounds[p + 1] = footprint.getMinY();
+        bounds[p + 2] = footprint.getMaxX();
+        bounds[p + 3] = footprint.getMaxY();
+        files[count++] = file;
+        tree = null;
+    }
+
+    /**
+     * Returns the number of files in this catalog.
+     *
+     * @return number of files.
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Returns the files whose footprint intersects the given area. Footprints touching the area
+     * only by an edge are included. The files are returned in no particular order.
+     *
+     * @param  area  the area of interest in the catalog CRS.
+     * @return files intersecting the given area.
+     */
+    public List<Path> search(final Rectangle2D area) {
+        Tree t = tree;
+        if (t == null) {
+            synchronized (this) {
+                t = tree;
+                if (t == null) {
+                    tree = t = new Tree(bounds, files, count);
+                }
+            }
+        }
+        final List<Path> results = new ArrayList<>();
+        t.search(area.getMinX(), area.getMinY(), area.getMaxX(), area.getMaxY(), results);
+        return results;
+    }
+}
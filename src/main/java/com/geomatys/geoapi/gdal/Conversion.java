@@ -0,0 +1,90 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.util.Collection;
+import java.util.Collections;
+import org.opengis.metadata.extent.Extent;
+import org.opengis.metadata.quality.PositionalAccuracy;
+import org.opengis.parameter.ParameterValueGroup;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.OperationMethod;
+import org.opengis.referencing.operation.Projection;
+import org.opengis.util.FactoryException;
+import org.opengis.util.InternationalString;
+
+
+/**
+ * The map projection from the base geographic CRS to a projected CRS.
+ * The math transform is backed by GDAL and created when first needed.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+final class Conversion extends ReferencingObject implements Projection {
+    /**
+     * The source and target coordinate reference systems.
+     */
+    private final CRS source, target;
+
+    /**
+     * The GDAL transform, created when first needed.
+     */
+    private MathTransform transform;
+
+    /**
+     * Creates a new conversion.
+     *
+     * @param  name    name of the projection method.
+     * @param  source  the base geographic CRS.
+     * @param  target  the projected CRS.
+     */
+    Conversion(final String name, final CRS source, final CRS target) {
+        super(name);
+        this.source = source;
+        this.target = target;
+    }
+
+    /**
+     * Returns the transform from the base geographic CRS to the projected CRS.
+     *
+     * @return the map projection backed by GDAL.
+     * @throws IllegalStateException if GDAL can not create the transformation.
+     */
+    @Override
+    public synchronized MathTransform getMathTransform() {
+        if (transform == null) {
+            try {
+                transform = new OSRTransform(source.toWKT(), target.toWKT());
+            } catch (FactoryException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
+        return transform;
+    }
+
+    @Override public CoordinateReferenceSystem      getSourceCRS()                    {return source;}
+    @Override public CoordinateReferenceSystem      getTargetCRS()                    {return target;}
+    @Override public String                         toWKT()                           {return null;}     // GDAL does not format operations.
+
+    /** Unimplemented methods. */
+    @Override public String                         getOperationVersion()             {return null;}
+    @Override public Collection<PositionalAccuracy> getCoordinateOperationAccuracy()  {return Collections.emptySet();}
+    @Override public Extent                         getDomainOfValidity()             {return null;}
+    @Override public InternationalString            getScope()                        {return null;}
+    @Override public OperationMethod                getMethod()                       {return null;}
+    @Override public ParameterValueGroup            getParameterValues()              {return null;}
+}
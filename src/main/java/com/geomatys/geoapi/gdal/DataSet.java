@@ -13,12 +13,37 @@
  */
 package com.geomatys.geoapi.gdal;
 
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 import org.opengis.metadata.Metadata;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform2D;
+import org.gdal.gdal.Band;
 import org.gdal.gdal.Dataset;
+import org.gdal.gdal.WarpOptions;
 import org.gdal.gdal.gdal;
+import org.gdal.gdalconst.gdalconst;
 
 
 /**
@@ -30,10 +55,128 @@ import org.gdal.gdal.gdal;
  */
 public class DataSet implements Closeable {
     /**
-     * The GDAL data set, or {@code null} if the dataset has been closed.
+     * Options for opening a dataset.
+     *
+     * @see DataSet#DataSet(Path, Option...)
+     */
+    public enum Option {
+        /**
+         * Each thread using the dataset gets its own native handle, opened when the thread first needs it.
+         * GDAL datasets are not safe for concurrent use, so without this option all threads reading the same
+         * dataset take turns on a single handle. With this option, reads from different threads run in parallel
+         * at the cost of one native handle per thread. All handles are disposed together when the dataset is closed.
+         */
+        CONCURRENT_READS,
+
+        /**
+         * Metadata properties are fetched from the native dataset only when first requested, then remembered.
+         * Without this option, {@link DataSet#getMetadata()} fetches all properties at once, including the
+         * georeferencing which requires parsing the WKT. With this option, callers which only need the raster
+         * size do not pay for the other properties. Properties not yet fetched become unavailable after the
+         * dataset has been closed, in which case their getter methods throw {@link java.io.UncheckedIOException}.
+         */
+        LAZY_METADATA
+    }
+
+    /**
+     * Receiver of measurements about the operations done by this library.
+     *
+     * @see #setMetrics(Metrics)
+     */
+    private static volatile Metrics metrics = Metrics.NONE;
+
+    /**
+     * The GDAL data set opened by the constructor, or {@code null} if the dataset has been closed.
+     * In {@link Option#CONCURRENT_READS} mode, this is the handle of the thread which opened the dataset.
      */
     private Dataset ds;
 
+    /**
+     * The string given to {@code gdal.Open(…)}, for opening additional handles in concurrent mode.
+     */
+    private final String path;
+
+    /**
+     * The handle of each thread in {@link Option#CONCURRENT_READS} mode, or {@code null} in the default mode.
+     */
+    private final ThreadLocal<Dataset> perThread;
+
+    /**
+     * All handles opened in {@link Option#CONCURRENT_READS} mode, including {@link #ds}.
+     * Shall be accessed in a block synchronized on {@code this}.
+     */
+    private final List<Dataset> handles;
+
+    /**
+     * Whether this dataset has been closed. Shall be checked in a block synchronized
+     * on the native handle before any operation on that handle.
+     */
+    private volatile boolean closed;
+
+    /**
+     * The absolute path of the file, used for identifying blocks in the {@link BlockCache}.
+     */
+    private final String file;
+
+    /**
+     * The file modification time at opening time, or 0 if unknown.
+     * Used for distinguishing blocks of different versions of the same file.
+     */
+    private final long modified;
+
+    /**
+     * The pool which created this dataset, or {@code null} if none.
+     * If non-null, {@link #close()} returns the {@linkplain #shared} dataset to the pool instead of disposing it.
+     */
+    private final DataSetPool pool;
+
+    /**
+     * The dataset which owns the native handles if this dataset is a lease given by a {@link DataSetPool},
+     * or {@code null} otherwise. Each call to {@link DataSetPool#open(Path)} returns a distinct lease,
+     * so that closing a lease twice does not release the shared dataset on behalf of another caller.
+     */
+    private final DataSet shared;
+
+    /**
+     * Whether {@link #path} is a file in the GDAL virtual memory file system,
+     * created for this dataset and to release when this dataset is disposed.
+     *
+     * @see #DataSet(byte[], Option...)
+     * @see #warp(CoordinateReferenceSystem, Rectangle2D, double, String, Option...)
+     */
+    private final boolean temporary;
+
+    /**
+     * The file in the GDAL virtual memory file system referenced by this warped view, or {@code null} if none.
+     * This is the {@link #path} of the dataset from which this view has been created if that path is a virtual file.
+     * The file is kept until this view is disposed, even if the source dataset is closed before.
+     */
+    private final String source;
+
+    /**
+     * Counter used for creating unique names of files in the GDAL virtual memory file system.
+     */
+    private static final AtomicLong MEMORY_FILE_COUNT = new AtomicLong();
+
+    /**
+     * Number of datasets using each file created by this class in the GDAL virtual memory file system.
+     * A file is deleted when its count drops to zero. All accesses shall be synchronized on this map.
+     */
+    private static final Map<String,Integer> MEMORY_FILES = new HashMap<>();
+
+    /**
+     * Whether metadata properties are fetched only when first requested.
+     *
+     * @see Option#LAZY_METADATA
+     */
+    private final boolean lazyMetadata;
+
+    /**
+     * Handle given by {@link NativeResources} for disposing the native resources
+     * if this dataset is garbage-collected without having been closed.
+     */
+    private final Object leakWatcher;
+
     /**
      * The raster metadata, fetched when first needed.
      */
@@ -42,17 +185,314 @@ public class DataSet implements Closeable {
     /**
      * Opens a dataset for the given file in read-only mode.
      *
-     * @param  file  the file to open.
+     * @param  file     the file to open.
+     * @param  options  options for opening the dataset, for example {@link Option#CONCURRENT_READS}.
+     * @throws IOException if the given file can not be opened.
+     */
+    public DataSet(final Path file, final Option... options) throws IOException {
+        this(file.toString(), file.toAbsolutePath().normalize(), false, null, options);
+    }
+
+    /**
+     * Opens a dataset from the content of a file held in memory, for example the body of an HTTP request.
+     * The bytes are given to the GDAL virtual memory file system ({@code /vsimem/}), so no file is written
+     * on disk. The virtual file is deleted when this dataset is closed.
+     *
+     * @param  content  the file content. Can be modified by the caller after this constructor returned.
+     * @param  options  options for opening the dataset.
+     * @throws IOException if the content can not be opened by GDAL.
+     */
+    public DataSet(final byte[] content, final Option... options) throws IOException {
+        this(memoryFile(content), null, true, null, options);
+    }
+
+    /**
+     * Opens a dataset from the content of a file held in a buffer. The bytes from the buffer position
+     * to its limit are given to the GDAL virtual memory file system. The buffer position is not modified.
+     *
+     * @param  content  the file content. Can be modified by the caller after this constructor returned.
+     * @param  options  options for opening the dataset.
+     * @throws IOException if the content can not be opened by GDAL.
+     *
+     * @see #DataSet(byte[], Option...)
+     */
+    public DataSet(final ByteBuffer content, final Option... options) throws IOException {
+        this(toArray(content), options);
+    }
+
+    /**
+     * Opens a dataset from the content of a file read from the given stream. All bytes are read
+     * until the end of stream and given to the GDAL virtual memory file system. The stream is not closed.
+     *
+     * @param  content  the stream from which to read the file content.
+     * @param  options  options for opening the dataset.
+     * @throws IOException if the stream can not be read or the content can not be opened by GDAL.
+     *
+     * @see #DataSet(byte[], Option...)
+     */
+    public DataSet(final InputStream content, final Option... options) throws IOException {
+        this(toArray(content), options);
+    }
+
+    /**
+     * Copies the given content in a new file of the GDAL virtual memory file system.
+     * GDAL keeps its own copy of the bytes.
+     *
+     * @param  content  the file content.
+     * @return path to the virtual file.
+     */
+    private static String memoryFile(final byte[] content) {
+        final String path = "/vsimem/geoapi-gdal/memory-" + MEMORY_FILE_COUNT.incrementAndGet();
+        gdal.FileFromMemBuffer(path, content);
+        retain(path);
+        return path;
+    }
+
+    /**
+     * Increments the number of datasets using the given file of the GDAL virtual memory file system.
+     *
+     * @param  path  the virtual file.
+     */
+    private static void retain(final String path) {
+        synchronized (MEMORY_FILES) {
+            MEMORY_FILES.merge(path, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Decrements the number of datasets using the given file of the GDAL virtual memory file system,
+     * and deletes the file if it is no longer used.
+     *
+     * @param  path  the virtual file.
+     */
+    private static void release(final String path) {
+        final boolean unused;
+        synchronized (MEMORY_FILES) {
+            unused = MEMORY_FILES.computeIfPresent(path, (key, count) -> (count > 1) ? count - 1 : null) == null;
+        }
+        if (unused) {
+            gdal.Unlink(path);
+        }
+    }
+
+    /**
+     * Returns the remaining bytes of the given buffer, without modifying its position.
+     * If the buffer is backed by an array containing exactly those bytes, that array is returned directly.
+     */
+    private static byte[] toArray(final ByteBuffer content) {
+        if (content.hasArray() && content.arrayOffset() == 0 && content.position() == 0
+                && content.remaining() == content.array().length)
+        {
+            return content.array();
+        }
+        final byte[] bytes = new byte[content.remaining()];
+        content.duplicate().get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Reads all remaining bytes of the given stream.
+     */
+    private static byte[] toArray(final InputStream content) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(content.available(), 8192));
+        final byte[] buffer = new byte[8192];
+        int n;
+        while ((n = content.read(buffer)) >= 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Creates a lease on a dataset managed by a pool. The lease uses the native handles of the shared dataset,
+     * but has its own {@code closed} flag. Closing the lease returns the shared dataset to the pool once.
+     *
+     * @param  shared  the dataset which owns the native handles.
+     * @param  pool    the pool which manages the shared dataset.
+     */
+    DataSet(final DataSet shared, final DataSetPool pool) {
+        this.shared  = shared;
+        this.pool    = pool;
+        path         = shared.path;
+        file         = shared.file;
+        modified     = shared.modified;
+        temporary    = false;
+        source       = null;
+        lazyMetadata = shared.lazyMetadata;
+        perThread    = shared.perThread;
+        handles      = null;
+        leakWatcher  = NativeResources.watch(this, file, () -> pool.release(shared));
+    }
+
+    /**
+     * Opens a dataset for the given path, which may be a file in the GDAL virtual memory file system.
+     *
+     * @param  path        the string to give to {@code gdal.Open(…)}.
+     * @param  normalized  the absolute normalized path, used as an identifier in caches.
+     * @param  temporary   whether the given path is a virtual file retained for this dataset,
+     *                     to release when this dataset is disposed.
+     * @param  source      a virtual file retained for this warped view, or {@code null} if none.
+     *                     This dataset becomes responsible for releasing it.
+     * @param  options     options for opening the dataset.
+     * @throws IOException if the given file can not be opened.
+     */
+    private DataSet(final String path, final Path normalized, final boolean temporary, final String source,
+            final Option... options) throws IOException
+    {
+        this.pool      = null;
+        this.shared    = null;
+        this.path      = path;
+        this.temporary = temporary;
+        this.source    = source;
+        file     = temporary ? path : normalized.toString();
+        modified = (!temporary && Files.isRegularFile(normalized)) ? Files.getLastModifiedTime(normalized).toMillis() : 0;
+        try {
+            ds = open(path);
+        } catch (IOException e) {
+            if (temporary) {
+                release(path);
+            }
+            if (source != null) {
+                release(source);
+            }
+            throw e;
+        }
+        final List<Option> opts = Arrays.asList(options);
+        lazyMetadata = opts.contains(Option.LAZY_METADATA);
+        if (opts.contains(Option.CONCURRENT_READS)) {
+            perThread = new ThreadLocal<>();
+            perThread.set(ds);
+            handles = new ArrayList<>();
+            handles.add(ds);
+        } else {
+            perThread = null;
+            handles = null;
+        }
+        leakWatcher = NativeResources.watch(this, file, cleanup(ds, handles, temporary ? path : null, source));
+    }
+
+    /**
+     * Returns the action to execute if a dataset is garbage-collected without having been closed.
+     * This method is static for making sure that the action does not reference the dataset.
+     *
+     * @param  ds         the handle opened by the constructor.
+     * @param  handles    all handles in concurrent mode, or {@code null}.
+     * @param  path       the virtual file given to {@code gdal.Open(…)}, or {@code null} if not a virtual file.
+     * @param  source     the virtual file referenced by a warped view, or {@code null} if none.
+     * @return the action disposing the native resources.
+     */
+    private static Runnable cleanup(final Dataset ds, final List<Dataset> handles, final String path, final String source) {
+        return () -> {
+            if (handles == null) {
+                ds.delete();
+                NativeResources.deleted();
+            } else {
+                for (final Dataset handle : handles) {
+                    handle.delete();
+                    NativeResources.deleted();
+                }
+            }
+            if (path != null) {
+                release(path);
+            }
+            if (source != null) {
+                release(source);
+            }
+        };
+    }
+
+    /**
+     * Opens a new native handle on the given file.
+     *
+     * @param  path  the file to open.
+     * @return the native handle (never null).
      * @throws IOException if the given file can not be opened.
      */
-    public DataSet(final Path file) throws IOException {
-        ds = gdal.Open(file.toString());
-        if (ds == null) {
-            String msg = gdal.GetLastErrorMsg();
-            if (msg == null) {
-                msg = "Can not open \"" + file + "\".";
+    private static Dataset open(final String path) throws IOException {
+        final long start = System.nanoTime();
+        final Dataset data = gdal.Open(path);
+        if (data == null) {
+            throw GDALException.lastError("Can not open \"" + path + "\".");
+        }
+        NativeResources.opened();
+        metrics.record(Metrics.Operation.OPEN, System.nanoTime() - start, 0);
+        return data;
+    }
+
+    /**
+     * Returns the receiver of measurements about the operations done by this library.
+     *
+     * @return the current metrics, {@link Metrics#NONE} by default.
+     */
+    public static Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the receiver of measurements about the operations done by all datasets.
+     * Measurements include the opening and closing of datasets, metadata extraction,
+     * CRS parsing, pixel reads and cache hits.
+     *
+     * @param  receiver  the new metrics, or {@code null} for disabling measurements.
+     *
+     * @see JMXMetrics#register()
+     */
+    public static void setMetrics(final Metrics receiver) {
+        metrics = (receiver != null) ? receiver : Metrics.NONE;
+    }
+
+    /**
+     * Returns the native handle to use in the current thread. In the default mode, this is the same handle
+     * for all threads. In {@link Option#CONCURRENT_READS} mode, a new handle is opened if the current thread
+     * does not have one yet.
+     *
+     * <p>All operations on the returned handle shall be done in a block synchronized on that handle,
+     * and {@link #ensureOpen()} shall be invoked inside that block before to use the handle.</p>
+     *
+     * @return the native handle to use in the current thread.
+     * @throws IOException if the dataset is closed or a new handle can not be opened.
+     */
+    final Dataset handle() throws IOException {
+        if (shared != null) {
+            ensureOpen();
+            return shared.handle();
+        }
+        if (perThread == null) {
+            final Dataset data = ds;
+            if (data == null) {
+                throw new IOException("DataSet is closed.");
+            }
+            return data;
+        }
+        Dataset data = perThread.get();
+        if (data == null) {
+            ensureOpen();
+            data = open(path);
+            synchronized (this) {
+                if (closed) {
+                    data.delete();
+                    NativeResources.deleted();
+                    ensureOpen();
+                }
+                handles.add(data);
             }
-            throw new GDALException(msg);
+            perThread.set(data);
+        }
+        return data;
+    }
+
+    /**
+     * Ensures that this dataset has not been closed. This method shall be invoked in a block
+     * synchronized on the handle returned by {@link #handle()}, before to use that handle.
+     *
+     * @throws IOException if this dataset has been closed.
+     */
+    final void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("DataSet is closed.");
+        }
+        if (shared != null) {
+            shared.ensureOpen();
         }
     }
 
@@ -63,12 +503,715 @@ public class DataSet implements Closeable {
      * @throws IOException if an error occurred while fetching the metadata.
      */
     public synchronized Metadata getMetadata() throws IOException {
+        if (shared != null) {
+            ensureOpen();
+            return shared.getMetadata();
+        }
         if (metadata == null) {
-            metadata = new RasterMetadata(ds);
+            final Dataset data = handle();
+            synchronized (data) {
+                ensureOpen();
+                final long start = System.nanoTime();
+                metadata = new RasterMetadata(lazyMetadata ? this : null, data);
+                metrics.record(Metrics.Operation.METADATA, System.nanoTime() - start, 0);
+            }
         }
         return metadata;
     }
 
+    /**
+     * Returns the conversion from pixel coordinates to "real world" coordinates. The target CRS is given by the
+     * {@linkplain Metadata#getReferenceSystemInfo() reference system info} of the metadata. This transform can
+     * be concatenated with an {@link OSRTransform} for reprojecting pixel coordinates to another CRS.
+     *
+     * @return the "grid to CRS" transform, mapping pixel corners.
+     * @throws IOException if the dataset is closed.
+     */
+    public MathTransform2D getGridToCRS() throws IOException {
+        return ((RasterMetadata) getMetadata()).getGridToCRSTransform();
+    }
+
+    /**
+     * Returns information about the dataset without blocking the caller. The metadata are fetched
+     * by the {@linkplain IOScheduler#getDefault() default I/O scheduler}.
+     *
+     * @return a future completed with information about the dataset.
+     */
+    public CompletableFuture<Metadata> getMetadataAsync() {
+        return IOScheduler.getDefault().submit(queueKey(), this::getMetadata);
+    }
+
+    /**
+     * Reads sample values without blocking the caller. The values are read by the
+     * {@linkplain IOScheduler#getDefault() default I/O scheduler}, after the operations
+     * previously submitted on this dataset. This method is otherwise identical to
+     * {@link #read(Rectangle, int, int, int[], int, ByteBuffer)}.
+     *
+     * @param  region    the region to read, in pixel coordinates of the full resolution image.
+     * @param  width     number of columns in the buffer.
+     * @param  height    number of rows in the buffer.
+     * @param  bands     the bands to read, numbered from 1, or {@code null} for all bands.
+     * @param  dataType  the GDAL type of values to store in the buffer.
+     * @param  target    a direct buffer where to store the values, or {@code null} for allocating a new buffer.
+     *                   Shall not be used by the caller before the future is completed.
+     * @return a future completed with the buffer, or exceptionally if the read failed or has been rejected.
+     */
+    public CompletableFuture<ByteBuffer> readAsync(final Rectangle region, final int width, final int height,
+            final int[] bands, final int dataType, final ByteBuffer target)
+    {
+        final Rectangle r = new Rectangle(region);
+        final int[] b = (bands != null) ? bands.clone() : null;
+        return IOScheduler.getDefault().submit(queueKey(), () -> read(r, width, height, b, dataType, target));
+    }
+
+    /**
+     * Returns the key for queueing operations on this dataset in the {@link IOScheduler}, or {@code null}
+     * if operations can run concurrently because each thread uses its own native handle.
+     */
+    private Object queueKey() {
+        return (perThread != null) ? null : (shared != null) ? shared : this;
+    }
+
+    /**
+     * Reads sample values in the given region directly into a native buffer, without intermediate Java arrays.
+     * Values are stored band after band, then row after row, in the native byte order of the platform.
+     * GDAL converts the values to the requested data type if it differs from the type stored in the file.
+     *
+     * <p>If the {@code target} argument is non-null, values are written starting at index 0 of that buffer
+     * regardless its position, and the buffer byte order is set to the native order. Callers can reuse the
+     * same buffer for many reads of the same size, which avoids allocation of native memory for each tile.</p>
+     *
+     * @param  region    the region to read, in pixel coordinates.
+     * @param  bands     the bands to read, numbered from 1, or {@code null} for all bands.
+     * @param  dataType  the GDAL type of values to store in the buffer, as a {@link gdalconst} {@code GDT_*} constant.
+     * @param  target    a direct buffer where to store the values, or {@code null} for allocating a new buffer.
+     * @return the buffer with its limit set to the number of bytes read. This is {@code target} if it was non-null.
+     * @throws IllegalArgumentException if the region is outside the raster, the data type is unknown
+     *         or the given buffer is not direct or not large enough.
+     * @throws IOException if the dataset is closed or GDAL failed to read the values.
+     */
+    public ByteBuffer read(final Rectangle region, final int[] bands, final int dataType, final ByteBuffer target)
+            throws IOException
+    {
+        return read(region, region.width, region.height, bands, dataType, target);
+    }
+
+    /**
+     * Reads sample values in the given region and resamples them to the given size.
+     * If the requested size is smaller than the region, values are read from the GDAL overview
+     * which is the closest to the requested resolution without being coarser. The level is the
+     * one returned by {@link #selectOverview(Rectangle, int, int)} for the same arguments.
+     * This method is otherwise identical to {@link #read(Rectangle, int[], int, ByteBuffer)}.
+     *
+     * <p>If the requested size is the region size and the requested data type is the type of all bands,
+     * the values are assembled from the blocks of the {@linkplain BlockCache#getDefault() shared block cache},
+     * so datasets opened on the same file reuse each other's decoded blocks. This can be disabled by setting
+     * the cache capacity to zero.</p>
+     *
+     * @param  region    the region to read, in pixel coordinates of the full resolution image.
+     * @param  width     number of columns in the buffer.
+     * @param  height    number of rows in the buffer.
+     * @param  bands     the bands to read, numbered from 1, or {@code null} for all bands.
+     * @param  dataType  the GDAL type of values to store in the buffer, as a {@link gdalconst} {@code GDT_*} constant.
+     * @param  target    a direct buffer where to store the values, or {@code null} for allocating a new buffer.
+     * @return the buffer with its limit set to the number of bytes read. This is {@code target} if it was non-null.
+     * @throws IllegalArgumentException if the region is outside the raster, the data type is unknown
+     *         or the given buffer is not direct or not large enough.
+     * @throws IOException if the dataset is closed or GDAL failed to read the values.
+     */
+    public ByteBuffer read(final Rectangle region, final int width, final int height, final int[] bands,
+            final int dataType, ByteBuffer target) throws IOException
+    {
+        final Dataset data = handle();
+        if (target == null) {
+            /*
+             * Allocate before to take the lock, because the allocation may dispose idle datasets and discard
+             * cached blocks. Other readers of this dataset shall not be blocked meanwhile.
+             */
+            final int numBands;
+            if (bands != null) {
+                numBands = bands.length;
+            } else {
+                synchronized (data) {
+                    ensureOpen();
+                    numBands = data.getRasterCount();
+                }
+            }
+            target = NativeResources.allocate(length(region, width, height, numBands, dataType));
+        }
+        if (width == region.width && height == region.height && BlockCache.getDefault().getCapacity() != 0) {
+            final int[] list = (bands != null) ? bands : allBands();
+            final int length = length(region, width, height, list.length, dataType);
+            if (!target.isDirect() || target.capacity() < length) {
+                throw new IllegalArgumentException("Target buffer must be direct with a capacity of at least " + length + " bytes.");
+            }
+            final int lineSpace = length / (list.length * height);
+            if (assemble(region, list, dataType, target, lineSpace, lineSpace * height)) {
+                target.order(ByteOrder.nativeOrder()).clear().limit(length);
+                return target;
+            }
+        }
+        long start = System.nanoTime();
+        synchronized (data) {
+            final Metrics m = metrics;
+            final long now = System.nanoTime();
+            m.record(Metrics.Operation.LOCK_WAIT, now - start, 0);
+            start = now;
+            ensureOpen();
+            final ByteBuffer result = read(data, region, width, height, bands, dataType, target);
+            m.record(Metrics.Operation.READ, System.nanoTime() - start, result.limit());
+            return result;
+        }
+    }
+
+    /**
+     * Reads sample values in the given region into a buffer typed according the band data type.
+     * For example values of {@code GDT_Byte} bands are stored with one byte per sample,
+     * and values of {@code GDT_Float32} bands are stored as {@code float}. The type is
+     * the type of the first requested band. The returned buffer carries the georeferencing
+     * of the window, taking in account the change of resolution if any.
+     * This method is otherwise identical to {@link #read(Rectangle, int, int, int[], int, ByteBuffer)}.
+     *
+     * @param  region  the region to read, in pixel coordinates of the full resolution image.
+     * @param  width   number of columns in the buffer.
+     * @param  height  number of rows in the buffer.
+     * @param  bands   the bands to read, numbered from 1, or {@code null} for all bands.
+     * @return the sample values in a buffer of the type the most suitable for the band.
+     * @throws IllegalArgumentException if the region is outside the raster or a band does not exist.
+     * @throws IOException if the dataset is closed or GDAL failed to read the values.
+     */
+    public SampleBuffer readSamples(final Rectangle region, final int width, final int height, final int[] bands)
+            throws IOException
+    {
+        final int bandType, numBands;
+        final Dataset data = handle();
+        synchronized (data) {
+            ensureOpen();
+            bandType = band(data, (bands != null && bands.length != 0) ? bands[0] : 1, 0).getDataType();
+            numBands = (bands != null) ? bands.length : data.getRasterCount();
+        }
+        final RasterMetadata md = (RasterMetadata) getMetadata();
+        final AffineTransform gridToCRS = md.getGridToCRS();
+        gridToCRS.translate(region.x, region.y);
+        gridToCRS.scale(region.width / (double) width, region.height / (double) height);
+        final SampleBuffer samples = SampleBuffer.create(bandType,
+                new GridGeometry(width, height, numBands, gridToCRS, md.getCoordinateReferenceSystem()));
+        read(region, width, height, bands, samples.getDataType(), samples.buffer);
+        return samples;
+    }
+
+    /**
+     * Returns the numbers of all bands, starting at 1.
+     *
+     * @return all band numbers in increasing order.
+     * @throws IOException if the dataset is closed.
+     */
+    private int[] allBands() throws IOException {
+        final int numBands;
+        final Dataset data = handle();
+        synchronized (data) {
+            ensureOpen();
+            numBands = data.getRasterCount();
+        }
+        final int[] bands = new int[numBands];
+        for (int i=0; i<numBands; i++) {
+            bands[i] = i + 1;
+        }
+        return bands;
+    }
+
+    /**
+     * Reads a window at full resolution by copying values from the blocks of the {@linkplain BlockCache#getDefault()
+     * shared block cache}, reading with {@link #readBlock(int, int, int, int)} the blocks not yet cached. This is
+     * possible only if all bands have the requested data type and the same block size, since cached blocks are
+     * in the type of the band. The lock on the native handle is not held during the copy.
+     * Callers shall have validated the buffer capacity.
+     *
+     * @param  region     the window to read, in pixel coordinates.
+     * @param  bands      the bands to read, numbered from 1.
+     * @param  dataType   the GDAL type of values to store in the buffer.
+     * @param  target     a direct buffer with the first pixel of the window at index 0.
+     * @param  lineSpace  number of bytes between the beginning of two consecutive rows in the buffer.
+     * @param  bandSpace  number of bytes between the beginning of two consecutive bands in the buffer.
+     * @return whether the values have been read, or {@code false} if the cache can not be used for this read.
+     * @throws IllegalArgumentException if the region is outside the raster or a band does not exist.
+     * @throws IOException if the dataset is closed or GDAL failed to read a block.
+     */
+    private boolean assemble(final Rectangle region, final int[] bands, final int dataType, final ByteBuffer target,
+            final int lineSpace, final int bandSpace) throws IOException
+    {
+        final int blockWidth, blockHeight;
+        final Dataset data = handle();
+        synchronized (data) {
+            ensureOpen();
+            if (region.isEmpty() || region.x < 0 || region.y < 0
+                    || region.x + region.width  > data.getRasterXSize()
+                    || region.y + region.height > data.getRasterYSize())
+            {
+                throw new IllegalArgumentException("Region " + region + " is outside the raster.");
+            }
+            if (bands.length == 0) {
+                return false;
+            }
+            final Band first = band(data, bands[0], 0);
+            blockWidth  = first.GetBlockXSize();
+            blockHeight = first.GetBlockYSize();
+            for (final int band : bands) {
+                final Band b = band(data, band, 0);
+                if (b.getDataType() != dataType || b.GetBlockXSize() != blockWidth || b.GetBlockYSize() != blockHeight) {
+                    return false;
+                }
+            }
+        }
+        final long start = System.nanoTime();
+        final int sampleSize = gdal.GetDataTypeSize(dataType) / Byte.SIZE;
+        final int xmax = region.x + region.width;
+        final int ymax = region.y + region.height;
+        final ByteBuffer output = target.duplicate();
+        output.clear();
+        for (int i=0; i<bands.length; i++) {
+            for (int blockY = region.y / blockHeight; blockY * blockHeight < ymax; blockY++) {
+                for (int blockX = region.x / blockWidth; blockX * blockWidth < xmax; blockX++) {
+                    final ByteBuffer block = readBlock(bands[i], 0, blockX, blockY);
+                    final int x0 = blockX * blockWidth;
+                    final int y0 = blockY * blockHeight;
+                    final int xmin   = Math.max(region.x, x0);
+                    final int length = (Math.min(xmax, x0 + blockWidth) - xmin) * sampleSize;
+                    final int yend   = Math.min(ymax, y0 + blockHeight);
+                    for (int y = Math.max(region.y, y0); y < yend; y++) {
+                        final int offset = ((y - y0) * blockWidth + (xmin - x0)) * sampleSize;
+                        block.clear();
+                        block.position(offset).limit(offset + length);
+                        output.position(i * bandSpace + (y - region.y) * lineSpace + (xmin - region.x) * sampleSize);
+                        output.put(block);
+                    }
+                }
+            }
+        }
+        metrics.record(Metrics.Operation.READ, System.nanoTime() - start,
+                       (long) region.width * region.height * sampleSize * bands.length);
+        return true;
+    }
+
+    /**
+     * Returns the number of bytes needed for reading the given number of bands in a buffer of the given size.
+     *
+     * @param  region    the region to read, used only for error message.
+     * @param  width     number of columns in the buffer.
+     * @param  height    number of rows in the buffer.
+     * @param  numBands  number of bands to read.
+     * @param  dataType  the GDAL type of values to store in the buffer.
+     * @return the buffer capacity in bytes.
+     * @throws IllegalArgumentException if the size is not positive, the data type is unknown or the region is too large.
+     */
+    private static int length(final Rectangle region, final int width, final int height, final int numBands,
+            final int dataType)
+    {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Buffer size shall be positive.");
+        }
+        final int sampleSize = gdal.GetDataTypeSize(dataType) / Byte.SIZE;
+        if (sampleSize == 0) {
+            throw new IllegalArgumentException("Unknown data type: " + dataType);
+        }
+        final long length = (long) width * height * sampleSize * numBands;
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Region " + region + " is too large.");
+        }
+        return (int) length;
+    }
+
+    /**
+     * Implementation of {@link #read(Rectangle, int, int, int[], int, ByteBuffer)} on the given handle.
+     * Caller shall synchronize on the handle. The target buffer shall be non-null.
+     */
+    private static ByteBuffer read(final Dataset data, final Rectangle region, final int width, final int height,
+            int[] bands, final int dataType, final ByteBuffer target) throws IOException
+    {
+        if (region.isEmpty() || region.x < 0 || region.y < 0
+                || region.x + region.width  > data.getRasterXSize()
+                || region.y + region.height > data.getRasterYSize())
+        {
+            throw new IllegalArgumentException("Region " + region + " is outside the raster.");
+        }
+        if (bands == null) {
+            bands = new int[data.getRasterCount()];
+            for (int i=0; i<bands.length; i++) {
+                bands[i] = i + 1;
+            }
+        }
+        final int length = length(region, width, height, bands.length, dataType);
+        final long bandLength = (long) width * height * (gdal.GetDataTypeSize(dataType) / Byte.SIZE);
+        if (!target.isDirect() || target.capacity() < length) {
+            throw new IllegalArgumentException("Target buffer must be direct with a capacity of at least " + length + " bytes.");
+        }
+        final int level = (bands.length == 0) ? 0 : selectOverview(band(data, bands[0], 0), region, width, height);
+        if (level == 0) {
+            final int err = data.ReadRaster_Direct(region.x, region.y, region.width, region.height,
+                                                   width, height, dataType, target, bands);
+            if (err != gdalconst.CE_None) {
+                throw GDALException.lastError("Can not read region " + region + '.');
+            }
+        } else {
+            /*
+             * Read each band from its overview, converting the region to overview pixel coordinates.
+             * Each band is written in a slice of the target buffer, since GDAL writes at the slice start.
+             */
+            final double fullWidth  = data.getRasterXSize();
+            final double fullHeight = data.getRasterYSize();
+            for (int i=0; i<bands.length; i++) {
+                final Band b = band(data, bands[i], level);
+                final double sx = b.getXSize() / fullWidth;
+                final double sy = b.getYSize() / fullHeight;
+                final int xmin = (int) Math.floor(region.x * sx);
+                final int ymin = (int) Math.floor(region.y * sy);
+                final int xmax = Math.min(b.getXSize(), Math.max(xmin + 1, (int) Math.ceil((region.x + region.width)  * sx)));
+                final int ymax = Math.min(b.getYSize(), Math.max(ymin + 1, (int) Math.ceil((region.y + region.height) * sy)));
+                target.clear().position((int) (i * bandLength));
+                final int err = b.ReadRaster_Direct(xmin, ymin, xmax - xmin, ymax - ymin, width, height, dataType, target.slice());
+                if (err != gdalconst.CE_None) {
+                    throw GDALException.lastError("Can not read region " + region + " at overview level " + level + '.');
+                }
+            }
+        }
+        target.order(ByteOrder.nativeOrder()).clear().limit(length);
+        return target;
+    }
+
+    /**
+     * Returns the overview level to use for reading the given region at the given size.
+     * This is the level of the coarsest overview having a resolution at least as fine as the requested
+     * resolution, or 0 if no overview is suitable. Level 0 is the full resolution image, and level
+     * <var>n</var> &gt; 0 is the overview at index <var>n</var>-1 as given by {@code Band.GetOverview(…)}.
+     *
+     * <p>Callers can compute the size from a target resolution using the resolution reported
+     * by the metadata {@linkplain org.opengis.metadata.spatial.Dimension#getResolution() grid axes}.</p>
+     *
+     * @param  region  the region to read, in pixel coordinates of the full resolution image.
+     * @param  width   number of columns to read.
+     * @param  height  number of rows to read.
+     * @return the overview level used by {@link #read(Rectangle, int, int, int[], int, ByteBuffer)}.
+     * @throws IOException if the dataset is closed.
+     */
+    public int selectOverview(final Rectangle region, final int width, final int height) throws IOException {
+        final Dataset data = handle();
+        synchronized (data) {
+            ensureOpen();
+            return selectOverview(band(data, 1, 0), region, width, height);
+        }
+    }
+
+    /**
+     * Implementation of {@link #selectOverview(Rectangle, int, int)} for the given full resolution band.
+     */
+    private static int selectOverview(final Band band, final Rectangle region, final int width, final int height) {
+        final double factor = Math.min(region.width / (double) width, region.height / (double) height);
+        final double fullWidth = band.getXSize();
+        double selected = 1;
+        int level = 0;
+        final int count = band.GetOverviewCount();
+        for (int i=0; i<count; i++) {
+            final double decimation = fullWidth / band.GetOverview(i).getXSize();
+            if (decimation <= factor && decimation > selected) {
+                selected = decimation;
+                level = i + 1;
+            }
+        }
+        return level;
+    }
+
+    /**
+     * Returns a block of sample values in the native data type of the band, using the {@linkplain BlockCache#getDefault()
+     * shared block cache}. If the block has already been decoded by any dataset opened on the same file, the cached
+     * block is returned without GDAL call. Otherwise the block is read and added to the cache.
+     *
+     * <p>The returned buffer is read-only and in native byte order. Its size is always the full block size
+     * as declared by {@code Band.GetBlockSize(…)}, including for the blocks on the right and bottom edges
+     * of the raster which may extend outside the image.</p>
+     *
+     * @param  band    the band to read, numbered from 1.
+     * @param  level   0 for the full resolution band, or the overview index + 1.
+     * @param  blockX  column index of the block, starting at 0.
+     * @param  blockY  row index of the block, starting at 0.
+     * @return the block content as a read-only direct buffer.
+     * @throws IllegalArgumentException if an index is out of bounds.
+     * @throws IOException if the dataset is closed or GDAL failed to read the block.
+     */
+    public ByteBuffer readBlock(final int band, final int level, final int blockX, final int blockY) throws IOException {
+        final BlockCache cache = BlockCache.getDefault();
+        final BlockCache.Key key = new BlockCache.Key(file, modified, band, level, blockX, blockY);
+        ByteBuffer block = cache.get(key);
+        final Metrics m = metrics;
+        m.cacheAccess(Metrics.Cache.BLOCK, block != null);
+        if (block == null) {
+            final Dataset data = handle();
+            final int capacity;
+            synchronized (data) {
+                ensureOpen();
+                final Band b = band(data, band, level);
+                final int width  = b.GetBlockXSize();
+                final int height = b.GetBlockYSize();
+                if (blockX < 0 || blockY < 0 || blockX * width >= b.getXSize() || blockY * height >= b.getYSize()) {
+                    throw new IllegalArgumentException("Block (" + blockX + ", " + blockY + ") is outside the raster.");
+                }
+                capacity = width * height * (gdal.GetDataTypeSize(b.getDataType()) / Byte.SIZE);
+            }
+            /*
+             * Allocate without holding the lock, since the allocation may release memory held by caches.
+             * The block is owned by the cache, which releases its memory count when the block is discarded.
+             */
+            block = NativeResources.allocateReserved(capacity);
+            boolean success = false;
+            try {
+                long start = System.nanoTime();
+                synchronized (data) {
+                    final long now = System.nanoTime();
+                    m.record(Metrics.Operation.LOCK_WAIT, now - start, 0);
+                    start = now;
+                    ensureOpen();
+                    final Band b = band(data, band, level);
+                    if (b.ReadBlock_Direct(blockX, blockY, block) != gdalconst.CE_None) {
+                        throw GDALException.lastError("Can not read " + key + '.');
+                    }
+                    m.record(Metrics.Operation.READ_BLOCK, System.nanoTime() - start, block.capacity());
+                }
+                success = true;
+            } finally {
+                if (!success) {
+                    NativeResources.release(capacity);
+                }
+            }
+            block = cache.put(key, block);
+        }
+        return block.asReadOnlyBuffer().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Reads a window of a single band at full resolution into the given direct buffer, starting at its address.
+     * This is a lighter version of {@link #read(Rectangle, int[], int, ByteBuffer)} for traversals of a band
+     * block by block, where callers have already validated the window and the buffer capacity.
+     *
+     * @param  band      the band to read, numbered from 1.
+     * @param  x         column of the upper-left pixel.
+     * @param  y         row of the upper-left pixel.
+     * @param  width     number of columns to read.
+     * @param  height    number of rows to read.
+     * @param  dataType  the GDAL type of values to store in the buffer.
+     * @param  target    a direct buffer with a capacity large enough for the window.
+     * @throws IOException if the dataset is closed or GDAL failed to read the values.
+     */
+    final void readWindow(final int band, final int x, final int y, final int width, final int height,
+            final int dataType, final ByteBuffer target) throws IOException
+    {
+        final Dataset data = handle();
+        synchronized (data) {
+            ensureOpen();
+            final long start = System.nanoTime();
+            if (band(data, band, 0).ReadRaster_Direct(x, y, width, height, width, height, dataType, target) != gdalconst.CE_None) {
+                throw GDALException.lastError("Can not read region (" + x + ", " + y + ", " + width + ", " + height + ") of band " + band + '.');
+            }
+            metrics.record(Metrics.Operation.READ, System.nanoTime() - start,
+                           (long) width * height * (gdal.GetDataTypeSize(dataType) / Byte.SIZE));
+        }
+    }
+
+    /**
+     * Reads a window of many bands at full resolution into a sub-region of a larger buffer.
+     * Values are written starting at the address of the given buffer, with the given number of bytes
+     * between the beginning of two consecutive rows and two consecutive bands. This allows composing
+     * many windows in the same buffer without intermediate copy. Callers shall have validated the window
+     * and the buffer capacity. Values are copied from the shared block cache when possible, as documented
+     * in {@link #read(Rectangle, int, int, int[], int, ByteBuffer)}.
+     *
+     * @param  region     the window to read, in pixel coordinates.
+     * @param  bands      the bands to read, numbered from 1.
+     * @param  dataType   the GDAL type of values to store in the buffer.
+     * @param  target     a direct buffer with the first pixel of the window at index 0.
+     * @param  lineSpace  number of bytes between the beginning of two consecutive rows in the buffer.
+     * @param  bandSpace  number of bytes between the beginning of two consecutive bands in the buffer.
+     * @throws IOException if the dataset is closed or GDAL failed to read the values.
+     *
+     * @see Mosaic#read(Rectangle, int[], int, ByteBuffer)
+     */
+    final void readWindow(final Rectangle region, final int[] bands, final int dataType, final ByteBuffer target,
+            final int lineSpace, final int bandSpace) throws IOException
+    {
+        if (BlockCache.getDefault().getCapacity() != 0 && assemble(region, bands, dataType, target, lineSpace, bandSpace)) {
+            return;
+        }
+        final int sampleSize = gdal.GetDataTypeSize(dataType) / Byte.SIZE;
+        final Dataset data = handle();
+        long start = System.nanoTime();
+        synchronized (data) {
+            final Metrics m = metrics;
+            final long now = System.nanoTime();
+            m.record(Metrics.Operation.LOCK_WAIT, now - start, 0);
+            start = now;
+            ensureOpen();
+            final int err = data.ReadRaster_Direct(region.x, region.y, region.width, region.height,
+                    region.width, region.height, dataType, target, bands, sampleSize, lineSpace, bandSpace);
+            if (err != gdalconst.CE_None) {
+                throw GDALException.lastError("Can not read region " + region + " of \"" + path + "\".");
+            }
+            m.record(Metrics.Operation.READ, System.nanoTime() - start,
+                     (long) region.width * region.height * sampleSize * bands.length);
+        }
+    }
+
+    /**
+     * Returns a stream over all sample values of the given band, converted to {@code double}.
+     * Values are read block by block, with one block-sized buffer per split. Consequently the stream
+     * can be used on rasters too large for holding a band in memory, and a {@linkplain DoubleStream#parallel()
+     * parallel} stream decodes different blocks in different threads of the common fork-join pool.
+     * Parallel decoding requires the {@link Option#CONCURRENT_READS} mode; otherwise reads are serialized
+     * while the processing of decoded values is still parallel.
+     *
+     * <p>Values are in block order: all values of the first block in row-major order, then all values of
+     * the next block, <var>etc.</var> This is the same order than the raster for striped images.
+     * "No data" values are included.</p>
+     *
+     * <p>Example counting the pixels above a threshold:</p>
+     * <pre>long n = dataset.doubles(1).parallel().filter(v -&gt; v &gt; 100).count();</pre>
+     *
+     * @param  band  the band to read, numbered from 1.
+     * @return a sequential stream over all values of the band.
+     * @throws IllegalArgumentException if the band number is out of bounds.
+     * @throws IOException if the dataset is closed. Errors while reading blocks are thrown
+     *         as {@link java.io.UncheckedIOException} by the stream terminal operation.
+     */
+    public DoubleStream doubles(final int band) throws IOException {
+        return StreamSupport.doubleStream(new BlockSpliterator.Doubles(this, band), false);
+    }
+
+    /**
+     * Returns a stream over all sample values of the given band, converted to {@code int}.
+     * This method is identical to {@link #doubles(int)} except for the value type,
+     * which is more efficient for bands of integer types.
+     *
+     * @param  band  the band to read, numbered from 1.
+     * @return a sequential stream over all values of the band.
+     * @throws IllegalArgumentException if the band number is out of bounds.
+     * @throws IOException if the dataset is closed.
+     */
+    public IntStream ints(final int band) throws IOException {
+        return StreamSupport.intStream(new BlockSpliterator.Ints(this, band), false);
+    }
+
+    /**
+     * Returns a virtual view of this dataset reprojected to the given CRS. The view is a GDAL warped VRT
+     * which references this dataset file: no pixel is resampled by this method. Pixels are resampled only
+     * when read from the returned dataset, only for the requested regions, and by the multi-threaded GDAL
+     * warper using all processors. The {@linkplain #getMetadata() metadata} of the returned dataset describe
+     * the output grid and CRS.
+     *
+     * <p>The returned dataset is independent of this dataset and shall be closed separately.
+     * Its virtual definition is deleted when it is closed. If this dataset has been created from bytes
+     * in memory, these bytes are kept until both this dataset and all its warped views are closed.</p>
+     *
+     * @param  crs         the target coordinate reference system.
+     * @param  bounds      the output bounds in units of the target CRS, or {@code null} for computing them
+     *                     from the bounds of this dataset.
+     * @param  resolution  the output pixel size in units of the target CRS, or {@link Double#NaN} for
+     *                     a resolution close to the resolution of this dataset.
+     * @param  resampling  the GDAL resampling method ({@code "near"}, {@code "bilinear"}, {@code "cubic"},
+     *                     <var>etc.</var>), or {@code null} for nearest neighbor.
+     * @param  options     options for opening the returned dataset.
+     * @return a virtual dataset in the target CRS.
+     * @throws IllegalArgumentException if the CRS has no Well Known Text.
+     * @throws IOException if this dataset is closed or GDAL can not create the warped view.
+     */
+    public DataSet warp(final CoordinateReferenceSystem crs, final Rectangle2D bounds, final double resolution,
+            final String resampling, final Option... options) throws IOException
+    {
+        final String wkt = crs.toWKT();
+        if (wkt == null) {
+            throw new IllegalArgumentException("The target CRS shall have a Well Known Text.");
+        }
+        final Vector<String> arguments = new Vector<>();
+        arguments.addAll(Arrays.asList("-of", "VRT", "-t_srs", wkt, "-multi", "-wo", "NUM_THREADS=ALL_CPUS"));
+        if (resampling != null) {
+            arguments.addAll(Arrays.asList("-r", resampling));
+        }
+        if (bounds != null) {
+            arguments.addAll(Arrays.asList("-te",
+                    Double.toString(bounds.getMinX()), Double.toString(bounds.getMinY()),
+                    Double.toString(bounds.getMaxX()), Double.toString(bounds.getMaxY())));
+        }
+        if (!Double.isNaN(resolution)) {
+            arguments.addAll(Arrays.asList("-tr", Double.toString(resolution), Double.toString(resolution)));
+        }
+        final String target = "/vsimem/geoapi-gdal/warp-" + MEMORY_FILE_COUNT.incrementAndGet() + ".vrt";
+        final WarpOptions warpOptions = new WarpOptions(arguments);
+        try {
+            final Dataset data = handle();
+            synchronized (data) {
+                ensureOpen();
+                final Dataset view = gdal.Warp(target, new Dataset[] {data}, warpOptions);
+                if (view == null) {
+                    throw GDALException.lastError("Can not create a warped view of \"" + path + "\".");
+                }
+                view.delete();              // Writes the VRT definition in the virtual file.
+                retain(target);
+                if (temporary) {
+                    retain(path);           // The view references the virtual file of this dataset.
+                }
+            }
+        } finally {
+            warpOptions.delete();
+        }
+        return new DataSet(target, null, true, temporary ? path : null, options);
+    }
+
+    /**
+     * Returns the band at the given overview level.
+     *
+     * @param  data   the GDAL dataset from which to get the band.
+     * @param  band   the band number, starting at 1.
+     * @param  level  0 for the full resolution band, or the overview index + 1.
+     * @return the requested band.
+     * @throws IllegalArgumentException if the band or the overview level is out of bounds.
+     */
+    static Band band(final Dataset data, final int band, final int level) {
+        if (band < 1 || band > data.getRasterCount()) {
+            throw new IllegalArgumentException("No band " + band + '.');
+        }
+        Band b = data.GetRasterBand(band);
+        if (level != 0) {
+            if (level < 0 || level > b.GetOverviewCount()) {
+                throw new IllegalArgumentException("No overview level " + level + '.');
+            }
+            b = b.GetOverview(level - 1);
+        }
+        return b;
+    }
+
+    /**
+     * Computes statistics for all bands: minimum, maximum, mean, standard deviation, number of "no data" values
+     * and histogram. Each band is read block by block in parallel, without loading the whole band in memory.
+     * The decoding of blocks is parallelized only in {@link Option#CONCURRENT_READS} mode.
+     * The statistics also become the {@linkplain org.opengis.metadata.content.CoverageDescription#getDimensions()
+     * dimensions} of the {@linkplain #getMetadata() metadata}.
+     *
+     * @param  bins  number of bins in the histograms.
+     * @return statistics for each band, in band order.
+     * @throws IOException if the dataset is closed or an error occurred while reading a block.
+     */
+    public List<BandStatistics> computeStatistics(final int bins) throws IOException {
+        final int numBands;
+        final Dataset data = handle();
+        synchronized (data) {
+            ensureOpen();
+            numBands = data.getRasterCount();
+        }
+        final BandStatistics[] statistics = new BandStatistics[numBands];
+        for (int i=0; i<numBands; i++) {
+            statistics[i] = BandStatistics.compute(this, i + 1, bins);
+        }
+        final List<BandStatistics> list = Collections.unmodifiableList(Arrays.asList(statistics));
+        ((RasterMetadata) getMetadata()).setDimensions(list);
+        return list;
+    }
+
     /*
      * See http://www.gdal.org/gdal_tutorial.html
      */
@@ -76,13 +1219,55 @@ public class DataSet implements Closeable {
     /**
      * Disposes native resources used by this dataset.
      * If this method is invoked more than once, invocations after the first call have no effect.
+     *
+     * <p>If this dataset has been obtained from a {@link DataSetPool}, then this method does not dispose
+     * the native resources but returns them to the pool. Invocations after the first call have no effect
+     * in that case too.</p>
      */
     @Override
-    public synchronized void close() {
+    public void close() {
+        if (shared == null) {
+            dispose();
+            return;
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            NativeResources.closed(leakWatcher);
+        }
+        pool.release(shared);
+    }
+
+    /**
+     * Disposes native resources used by this dataset, ignoring the pool.
+     * If this method is invoked more than once, invocations after the first call have no effect.
+     */
+    final synchronized void dispose() {
+        closed = true;
         final Dataset data = ds;
         if (data != null) {
+            final long start = System.nanoTime();
             ds = null;                  // Discard now in case of failure below.
-            data.delete();
+            NativeResources.closed(leakWatcher);
+            if (handles == null) {
+                data.delete();          // Synchronized on the handle, so waits for the completion of pending reads.
+                NativeResources.deleted();
+            } else {
+                for (final Dataset handle : handles) {
+                    handle.delete();
+                    NativeResources.deleted();
+                }
+                handles.clear();
+            }
+            if (temporary) {
+                release(path);
+            }
+            if (source != null) {
+                release(source);
+            }
+            metrics.record(Metrics.Operation.CLOSE, System.nanoTime() - start, 0);
         }
     }
 }
@@ -0,0 +1,348 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * A bounded pool of opened datasets, shared by all callers opening the same file.
+ * Datasets are keyed by their normalized path and modification time: if a file is modified,
+ * the next call to {@link #open(Path)} opens a new handle and the old one is disposed after
+ * all its users closed it.
+ *
+ * <p>The number of native handles opened at the same time is limited. When that limit is reached,
+ * the least recently used idle dataset is disposed. If all datasets are in use, {@code open(…)}
+ * blocks until a dataset is returned to the pool. Datasets which stayed idle for longer than
+ * a configurable delay are disposed and will be reopened on demand.</p>
+ *
+ * <p>Each call to {@link #open(Path)} returns a distinct lease on the shared native handle.
+ * Callers shall invoke {@link DataSet#close()} on the lease when they no longer need it.
+ * Closing the same lease twice has no effect, so it can not release the handle used by another caller.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final class DataSetPool implements Closeable {
+    /**
+     * An opened dataset together with information about its usage.
+     */
+    private static final class Entry {
+        /** The dataset, or {@code null} if the file is being opened by another thread. */
+        DataSet dataset;
+
+        /** Modification time of the file when the dataset has been opened. */
+        final long modified;
+
+        /** Number of callers currently using the dataset. */
+        int users;
+
+        /** Value of {@link System#nanoTime()} when the dataset has been released for the last time. */
+        long lastUse;
+
+        /** Whether this entry has been removed from the pool, for example because the file has been modified. */
+        boolean retired;
+
+        /** Creates a new entry for a file having the given modification time. */
+        Entry(final long modified) {
+            this.modified = modified;
+        }
+    }
+
+    /**
+     * The datasets that can be shared, keyed by normalized absolute path.
+     * Iteration order is from least recently used to most recently used.
+     */
+    private final LinkedHashMap<String,Entry> entries;
+
+    /**
+     * All shared datasets, including retired ones, for finding the entry on release.
+     */
+    private final IdentityHashMap<DataSet,Entry> leases;
+
+    /**
+     * Maximal number of native handles to keep opened at the same time.
+     */
+    private final int maxOpen;
+
+    /**
+     * Delay in nanoseconds after which an idle dataset is disposed.
+     */
+    private final long idleTimeout;
+
+    /**
+     * Number of native handles currently opened or being opened.
+     */
+    private int openCount;
+
+    /**
+     * Whether this pool has been closed.
+     */
+    private boolean closed;
+
+    /**
+     * Creates a new pool.
+     *
+     * @param  maxOpen      maximal number of native handles to keep opened at the same time.
+     * @param  idleTimeout  delay after which an unused dataset is disposed.
+     * @param  unit         unit of the {@code idleTimeout} argument.
+     */
+    public DataSetPool(final int maxOpen, final long idleTimeout, final TimeUnit unit) {
+        if (maxOpen <= 0) {
+            throw new IllegalArgumentException("Maximal number of opened datasets must be positive.");
+        }
+        this.maxOpen     = maxOpen;
+        this.idleTimeout = unit.toNanos(idleTimeout);
+        entries = new LinkedHashMap<>(64, 0.75f, true);
+        leases  = new IdentityHashMap<>();
+        NativeResources.register(this);
+    }
+
+    /**
+     * Returns a dataset for the given file, opening it only if no handle is already available.
+     * The returned dataset is a lease on a shared handle, and shall be closed when no longer needed.
+     *
+     * @param  file  the file to open.
+     * @return a new lease on a shared dataset for the given file.
+     * @throws IOException if the file can not be opened, or the thread has been interrupted while waiting.
+     */
+    public DataSet open(final Path file) throws IOException {
+        final Path path = file.toAbsolutePath().normalize();
+        final String key = path.toString();
+        final long modified = Files.isRegularFile(path) ? Files.getLastModifiedTime(path).toMillis() : 0;
+        final List<DataSet> disposals = new ArrayList<>();
+        final Entry entry;
+        try {
+            synchronized (this) {
+                while (true) {
+                    ensureOpen();
+                    evictIdle(disposals, System.nanoTime());
+                    final Entry existing = entries.get(key);
+                    if (existing != null) {
+                        if (existing.modified == modified) {
+                            if (existing.dataset == null) {
+                                wait();                     // Another thread is opening the same file.
+                                continue;
+                            }
+                            existing.users++;
+                            return new DataSet(existing.dataset, this);
+                        }
+                        entries.remove(key);
+                        retire(existing, disposals);
+                    }
+                    if (openCount < maxOpen || evictLeastRecentlyUsed(disposals)) {
+                        break;
+                    }
+                    wait();                                 // All handles are in use.
+                }
+                entry = new Entry(modified);
+                entries.put(key, entry);
+                openCount++;
+            }
+        } catch (InterruptedException e) {
+            throw (IOException) new InterruptedIOException("Interrupted while waiting for an available dataset.").initCause(e);
+        } finally {
+            dispose(disposals);
+        }
+        /*
+         * Open the dataset outside the synchronized block, since GDAL may need
+         * to parse file headers. Other threads can meanwhile use other files.
+         */
+        DataSet dataset = null;
+        try {
+            dataset = new DataSet(file);
+        } finally {
+            synchronized (this) {
+                if (dataset != null) {
+                    entry.dataset = dataset;
+                    entry.users   = 1;
+                    leases.put(dataset, entry);
+                } else {
+                    entries.remove(key, entry);
+                    openCount--;
+                }
+                notifyAll();
+            }
+        }
+        return new DataSet(dataset, this);
+    }
+
+    /**
+     * Invoked by {@link DataSet#close()} when a lease on the given dataset is closed.
+     * This method shall be invoked only once per lease.
+     *
+     * @param  dataset  the shared dataset which is no longer used by the caller.
+     */
+    final void release(final DataSet dataset) {
+        final List<DataSet> disposals = new ArrayList<>();
+        synchronized (this) {
+            final Entry entry = leases.get(dataset);
+            if (entry != null && entry.users > 0 && --entry.users == 0) {
+                entry.lastUse = System.nanoTime();
+                if (entry.retired || closed) {
+                    if (!entry.retired) {
+                        entries.values().remove(entry);
+                    }
+                    remove(entry, disposals);
+                }
+                evictIdle(disposals, entry.lastUse);
+                notifyAll();
+            }
+        }
+        dispose(disposals);
+    }
+
+    /**
+     * Disposes all idle datasets which have not been used for longer than the idle timeout.
+     * This method is invoked automatically on each {@code open} and {@code close} operations,
+     * but can also be invoked periodically by a background task.
+     */
+    public void evictIdle() {
+        final List<DataSet> disposals = new ArrayList<>();
+        synchronized (this) {
+            evictIdle(disposals, System.nanoTime());
+        }
+        dispose(disposals);
+    }
+
+    /**
+     * Disposes all idle datasets regardless of the idle timeout.
+     * Invoked by {@link NativeResources} when the native memory budget is exceeded.
+     */
+    final void evictAllIdle() {
+        final List<DataSet> disposals = new ArrayList<>();
+        synchronized (this) {
+            while (evictLeastRecentlyUsed(disposals)) {
+                notifyAll();
+            }
+        }
+        dispose(disposals);
+    }
+
+    /**
+     * Removes from the pool all idle datasets which expired at the given time.
+     * Datasets to dispose are added to the given list, to be disposed outside the synchronized block.
+     */
+    private void evictIdle(final List<DataSet> disposals, final long now) {
+        final Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            final Entry entry = it.next();
+            if (entry.users == 0 && entry.dataset != null && now - entry.lastUse >= idleTimeout) {
+                it.remove();
+                remove(entry, disposals);
+            }
+        }
+    }
+
+    /**
+     * Removes from the pool the least recently used idle dataset, if any.
+     *
+     * @return whether a dataset has been removed.
+     */
+    private boolean evictLeastRecentlyUsed(final List<DataSet> disposals) {
+        final Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            final Entry entry = it.next();
+            if (entry.users == 0 && entry.dataset != null) {
+                it.remove();
+                remove(entry, disposals);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks the given entry as no longer shareable. If the dataset is still in use, it will be disposed
+     * when its last user will close it. Otherwise it is disposed now. Caller must have removed the entry
+     * from the {@link #entries} map.
+     */
+    private void retire(final Entry entry, final List<DataSet> disposals) {
+        entry.retired = true;
+        if (entry.users == 0 && entry.dataset != null) {
+            remove(entry, disposals);
+        }
+    }
+
+    /**
+     * Forgets the given idle entry and schedules its dataset for disposal.
+     * Caller must have removed the entry from the {@link #entries} map.
+     */
+    private void remove(final Entry entry, final List<DataSet> disposals) {
+        entry.retired = true;
+        leases.remove(entry.dataset);
+        disposals.add(entry.dataset);
+        openCount--;
+    }
+
+    /**
+     * Disposes the given datasets. Invoked outside synchronized blocks.
+     */
+    private static void dispose(final List<DataSet> disposals) {
+        for (final DataSet dataset : disposals) {
+            dataset.dispose();
+        }
+    }
+
+    /**
+     * Ensures that this pool is not closed.
+     */
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("DataSetPool is closed.");
+        }
+    }
+
+    /**
+     * Returns the number of native handles currently opened by this pool.
+     *
+     * @return number of opened datasets, including the ones in use.
+     */
+    public synchronized int getOpenCount() {
+        return openCount;
+    }
+
+    /**
+     * Disposes all idle datasets and prevents this pool from opening new ones.
+     * Datasets still in use will be disposed when their users close them.
+     */
+    @Override
+    public void close() {
+        final List<DataSet> disposals = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            final Iterator<Entry> it = entries.values().iterator();
+            while (it.hasNext()) {
+                final Entry entry = it.next();
+                if (entry.dataset != null) {
+                    it.remove();
+                    retire(entry, disposals);
+                }
+            }
+            notifyAll();
+        }
+        dispose(disposals);
+    }
+}
@@ -0,0 +1,395 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.awt.geom.AffineTransform;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import org.gdal.gdal.Band;
+import org.gdal.gdal.Dataset;
+import org.gdal.gdal.Driver;
+import org.gdal.gdal.gdal;
+import org.gdal.gdalconst.gdalconst;
+import org.opengis.metadata.Metadata;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+
+/**
+ * Writes a raster block by block into a tiled GeoTIFF file. Blocks are given in direct buffers and written
+ * by GDAL without intermediate Java arrays. The GDAL cache is flushed to the file each time that all blocks
+ * of a row of blocks have been written in all bands, and also when the number of blocks written since the last
+ * flush reaches the number of blocks in a row. Consequently at most one row of blocks is kept in the GDAL cache,
+ * so rasters much larger than the memory can be written.
+ *
+ * <p>The file is created with the following GeoTIFF creation options by default, which can be overridden
+ * by the options given at construction time: {@code TILED=YES}, {@code BLOCKXSIZE=256}, {@code BLOCKYSIZE=256},
+ * {@code COMPRESS=DEFLATE} and {@code BIGTIFF=IF_SAFER}. Other useful options are {@code PREDICTOR=2} (for integer
+ * values) or {@code PREDICTOR=3} (for floating point values) and {@code COMPRESS=ZSTD}.</p>
+ *
+ * <p>Example:</p>
+ * <pre>try (DataSetWriter writer = new DataSetWriter(file, width, height, 1, gdalconst.GDT_Int16, "PREDICTOR=2")) {
+ *     writer.setGeoreferencing(gridToCRS, crs);
+ *     writer.setOverviews("AVERAGE", 2, 4, 8, 16);
+ *     for (int by=0; by&lt;writer.getNumBlocksY(); by++) {
+ *         for (int bx=0; bx&lt;writer.getNumBlocksX(); bx++) {
+ *             writer.writeBlock(1, bx, by, compute(bx, by));
+ *         }
+ *     }
+ * }</pre>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final class DataSetWriter implements Closeable {
+    /**
+     * Options for creating a file.
+     *
+     * @see DataSetWriter#DataSetWriter(Path, int, int, int, int, Option[], String...)
+     */
+    public enum Option {
+        /**
+         * Produces a Cloud Optimized GeoTIFF, with overviews stored before the full resolution image.
+         * Since overviews can only be computed after all blocks have been written, blocks are first
+         * written in a temporary file next to the target file, then copied in the final layout
+         * when the writer is closed. This doubles the amount of data written on disk.
+         */
+        CLOUD_OPTIMIZED
+    }
+
+    /**
+     * The GeoTIFF creation options applied when not overridden by the user.
+     */
+    private static final String[] DEFAULT_OPTIONS = {
+        "TILED=YES", "BLOCKXSIZE=256", "BLOCKYSIZE=256", "COMPRESS=DEFLATE", "BIGTIFF=IF_SAFER"
+    };
+
+    /**
+     * The file to create.
+     */
+    private final Path file;
+
+    /**
+     * The file where blocks are written. This is {@link #file} unless a Cloud Optimized GeoTIFF is requested.
+     */
+    private final Path target;
+
+    /**
+     * The creation options, used again for the final copy of Cloud Optimized GeoTIFF.
+     */
+    private final String[] creationOptions;
+
+    /**
+     * The GDAL dataset being written, or {@code null} after {@link #close()}.
+     */
+    private Dataset ds;
+
+    /**
+     * The block size and the number of blocks in each dimension.
+     */
+    private final int blockWidth, blockHeight, numBlocksX, numBlocksY;
+
+    /**
+     * The size in bytes of a full block.
+     */
+    private final int blockLength;
+
+    /**
+     * Maximal number of blocks written since the last flush before to flush again.
+     */
+    private final int maxDirtyBlocks;
+
+    /**
+     * Number of blocks written since the last flush.
+     */
+    private int dirtyBlocks;
+
+    /**
+     * The blocks written so far, for detecting when a row of blocks is complete. The bit of the block
+     * at ({@code blockX}, {@code blockY}) in band <var>b</var> is {@code (blockY*numBlocksX + blockX)*numBands + b-1}.
+     */
+    private final BitSet written;
+
+    /**
+     * Number of distinct blocks written in each row of blocks, all bands included.
+     */
+    private final int[] writtenInRow;
+
+    /**
+     * The resampling method for building overviews.
+     */
+    private String resampling;
+
+    /**
+     * The overview decimation factors, or {@code null} if no overview is requested.
+     */
+    private int[] overviews;
+
+    /**
+     * Creates a new GeoTIFF file.
+     *
+     * @param  file             the file to create.
+     * @param  width            number of columns.
+     * @param  height           number of rows.
+     * @param  numBands         number of bands.
+     * @param  dataType         the GDAL type of sample values, as a {@link gdalconst} {@code GDT_*} constant.
+     * @param  creationOptions  GeoTIFF creation options in {@code "NAME=VALUE"} form, overriding the defaults.
+     * @throws IOException if the file can not be created.
+     */
+    public DataSetWriter(final Path file, final int width, final int height, final int numBands, final int dataType,
+            final String... creationOptions) throws IOException
+    {
+        this(file, width, height, numBands, dataType, new Option[0], creationOptions);
+    }
+
+    /**
+     * Creates a new GeoTIFF file with the given options.
+     *
+     * @param  file             the file to create.
+     * @param  width            number of columns.
+     * @param  height           number of rows.
+     * @param  numBands         number of bands.
+     * @param  dataType         the GDAL type of sample values, as a {@link gdalconst} {@code GDT_*} constant.
+     * @param  options          options such as {@link Option#CLOUD_OPTIMIZED}.
+     * @param  creationOptions  GeoTIFF creation options in {@code "NAME=VALUE"} form, overriding the defaults.
+     * @throws IOException if the file can not be created.
+     */
+    public DataSetWriter(final Path file, final int width, final int height, final int numBands, final int dataType,
+            final Option[] options, final String... creationOptions) throws IOException
+    {
+        this.file = file;
+        this.creationOptions = merge(creationOptions);
+        target = Arrays.asList(options).contains(Option.CLOUD_OPTIMIZED)
+                 ? file.resolveSibling(file.getFileName() + ".tmp.tiff") : file;
+        final Driver driver = gdal.GetDriverByName("GTiff");
+        if (driver == null) {
+            throw GDALException.lastError("GeoTIFF driver not found.");
+        }
+        ds = driver.Create(target.toString(), width, height, numBands, dataType, this.creationOptions);
+        if (ds == null) {
+            throw GDALException.lastError("Can not create \"" + target + "\".");
+        }
+        final Band band = ds.GetRasterBand(1);
+        blockWidth  = band.GetBlockXSize();
+        blockHeight = band.GetBlockYSize();
+        numBlocksX  = (width  + blockWidth  - 1) / blockWidth;
+        numBlocksY  = (height + blockHeight - 1) / blockHeight;
+        blockLength = blockWidth * blockHeight * (gdal.GetDataTypeSize(dataType) / Byte.SIZE);
+        maxDirtyBlocks = numBlocksX * numBands;
+        written        = new BitSet();
+        writtenInRow   = new int[numBlocksY];
+    }
+
+    /**
+     * Returns the default creation options overridden by the given options.
+     */
+    private static String[] merge(final String[] options) {
+        final List<String> merged = new ArrayList<>();
+        for (final String option : DEFAULT_OPTIONS) {
+            final String prefix = option.substring(0, option.indexOf('=') + 1);
+            boolean overridden = false;
+            for (final String user : options) {
+                if (user.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                    overridden = true;
+                    break;
+                }
+            }
+            if (!overridden) {
+                merged.add(option);
+            }
+        }
+        merged.addAll(Arrays.asList(options));
+        return merged.toArray(new String[merged.size()]);
+    }
+
+    /**
+     * Ensures that this writer is not closed and returns the dataset.
+     */
+    private Dataset dataset() throws IOException {
+        if (ds == null) {
+            throw new IOException("DataSetWriter is closed.");
+        }
+        return ds;
+    }
+
+    /**
+     * Sets the conversion from pixel coordinates to "real world" coordinates, and the target CRS.
+     *
+     * @param  gridToCRS  conversion from pixel corner coordinates to CRS coordinates.
+     * @param  crs        the coordinate reference system, or {@code null} if unknown.
+     * @throws IOException if the writer is closed or GDAL can not store the georeferencing.
+     */
+    public synchronized void setGeoreferencing(final AffineTransform gridToCRS, final CoordinateReferenceSystem crs)
+            throws IOException
+    {
+        final Dataset data = dataset();
+        final double[] gt = {
+            gridToCRS.getTranslateX(), gridToCRS.getScaleX(), gridToCRS.getShearX(),
+            gridToCRS.getTranslateY(), gridToCRS.getShearY(), gridToCRS.getScaleY()
+        };
+        if (data.SetGeoTransform(gt) != gdalconst.CE_None) {
+            throw GDALException.lastError("Can not set the geotransform.");
+        }
+        if (crs != null) {
+            final String wkt = crs.toWKT();
+            if (wkt == null || data.SetProjection(wkt) != gdalconst.CE_None) {
+                throw GDALException.lastError("Can not set the coordinate reference system.");
+            }
+        }
+    }
+
+    /**
+     * Copies the georeferencing of the given metadata. The metadata shall have been created by
+     * {@link DataSet#getMetadata()} or {@link MetadataIndex#getMetadata(Path)} for a raster of
+     * the same size than the raster written by this writer.
+     *
+     * @param  source  metadata of the raster from which to copy the georeferencing.
+     * @throws IllegalArgumentException if the metadata has not been created by this package
+     *         or describes a raster of different size.
+     * @throws IOException if the writer is closed or GDAL can not store the georeferencing.
+     */
+    public synchronized void setGeoreferencing(final Metadata source) throws IOException {
+        if (!(source instanceof GridGeometry)) {
+            throw new IllegalArgumentException("Unsupported metadata implementation.");
+        }
+        final GridGeometry grid = (GridGeometry) source;
+        final Dataset data = dataset();
+        if (grid.getWidth() != data.getRasterXSize() || grid.getHeight() != data.getRasterYSize()) {
+            throw new IllegalArgumentException("Expected a raster of " + data.getRasterXSize() + '×' + data.getRasterYSize()
+                    + " pixels but got " + grid.getWidth() + '×' + grid.getHeight() + '.');
+        }
+        setGeoreferencing(grid.getGridToCRS(), grid.getCoordinateReferenceSystem());
+    }
+
+    /**
+     * Requests overviews to be built when this writer is closed.
+     *
+     * @param  resampling  the resampling method: {@code "NEAREST"}, {@code "AVERAGE"}, {@code "CUBIC"}, <var>etc.</var>
+     * @param  factors     the decimation factors, for example 2, 4, 8, 16.
+     */
+    public synchronized void setOverviews(final String resampling, final int... factors) {
+        this.resampling = resampling;
+        this.overviews  = factors.clone();
+    }
+
+    /**
+     * Returns the number of blocks in a row.
+     *
+     * @return number of block columns.
+     */
+    public int getNumBlocksX() {
+        return numBlocksX;
+    }
+
+    /**
+     * Returns the number of blocks in a column.
+     *
+     * @return number of block rows.
+     */
+    public int getNumBlocksY() {
+        return numBlocksY;
+    }
+
+    /**
+     * Returns the number of bytes expected by {@link #writeBlock(int, int, int, ByteBuffer)}.
+     * Blocks on the right and bottom edges have the same size, with values outside the image ignored.
+     *
+     * @return number of bytes in a block.
+     */
+    public int getBlockLength() {
+        return blockLength;
+    }
+
+    /**
+     * Writes a block of sample values. The values shall be in the data type given at construction time,
+     * in native byte order, row after row. Blocks can be written in any order, but writing them row of blocks
+     * after row of blocks keeps the number of blocks held in memory at minimum.
+     *
+     * @param  band    the band to write, numbered from 1.
+     * @param  blockX  column index of the block, starting at 0.
+     * @param  blockY  row index of the block, starting at 0.
+     * @param  values  a direct buffer with at least {@link #getBlockLength()} bytes.
+     * @throws IllegalArgumentException if an index is out of bounds or the buffer is not direct or too small.
+     * @throws IOException if the writer is closed or GDAL failed to write the block.
+     */
+    public synchronized void writeBlock(final int band, final int blockX, final int blockY, final ByteBuffer values)
+            throws IOException
+    {
+        if (blockX < 0 || blockX >= numBlocksX || blockY < 0 || blockY >= numBlocksY) {
+            throw new IllegalArgumentException("Block (" + blockX + ", " + blockY + ") is outside the raster.");
+        }
+        if (!values.isDirect() || values.capacity() < blockLength) {
+            throw new IllegalArgumentException("Values must be in a direct buffer of at least " + blockLength + " bytes.");
+        }
+        final Dataset data = dataset();
+        if (band < 1 || band > data.getRasterCount()) {
+            throw new IllegalArgumentException("No band " + band + '.');
+        }
+        if (data.GetRasterBand(band).WriteBlock_Direct(blockX, blockY, values) != gdalconst.CE_None) {
+            throw GDALException.lastError("Can not write block (" + blockX + ", " + blockY + ") of band " + band + '.');
+        }
+        final int bit = (blockY * numBlocksX + blockX) * data.getRasterCount() + (band - 1);
+        boolean rowComplete = false;
+        if (!written.get(bit)) {
+            written.set(bit);
+            rowComplete = (++writtenInRow[blockY] == maxDirtyBlocks);
+        }
+        if (++dirtyBlocks >= maxDirtyBlocks || rowComplete) {
+            data.FlushCache();
+            dirtyBlocks = 0;
+        }
+    }
+
+    /**
+     * Builds the overviews if requested, flushes all blocks and closes the file.
+     * In {@link Option#CLOUD_OPTIMIZED} mode, this method also creates the final file.
+     *
+     * @throws IOException if an error occurred while building overviews or writing the file.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        final Dataset data = ds;
+        if (data == null) {
+            return;
+        }
+        ds = null;
+        try {
+            data.FlushCache();
+            if (overviews != null && data.BuildOverviews(resampling, overviews) != gdalconst.CE_None) {
+                throw GDALException.lastError("Can not build overviews of \"" + file + "\".");
+            }
+            if (target != file) {
+                final String[] options = Arrays.copyOf(creationOptions, creationOptions.length + 1);
+                options[creationOptions.length] = "COPY_SRC_OVERVIEWS=YES";
+                final Dataset copy = gdal.GetDriverByName("GTiff").CreateCopy(file.toString(), data, 0, options);
+                if (copy == null) {
+                    throw GDALException.lastError("Can not create \"" + file + "\".");
+                }
+                copy.delete();
+            }
+        } finally {
+            data.delete();
+            if (target != file) {
+                Files.deleteIfExists(target);
+            }
+        }
+    }
+}
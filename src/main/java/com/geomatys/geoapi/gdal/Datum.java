@@ -0,0 +1,119 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.util.Date;
+import javax.measure.Unit;
+import javax.measure.quantity.Angle;
+import javax.measure.quantity.Length;
+import org.gdal.osr.SpatialReference;
+import org.opengis.metadata.extent.Extent;
+import org.opengis.referencing.datum.Ellipsoid;
+import org.opengis.referencing.datum.GeodeticDatum;
+import org.opengis.referencing.datum.PrimeMeridian;
+import org.opengis.util.InternationalString;
+import tech.uom.seshat.Units;
+
+
+/**
+ * The geodetic datum of a GDAL geographic or projected coordinate reference system,
+ * together with its ellipsoid and prime meridian.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+final class Datum extends ReferencingObject implements GeodeticDatum {
+    /**
+     * The ellipsoid of this datum.
+     */
+    private final Spheroid ellipsoid;
+
+    /**
+     * The prime meridian of this datum.
+     */
+    private final Meridian primeMeridian;
+
+    /**
+     * Creates a new datum for the given GDAL reference system.
+     *
+     * @param  srs   the GDAL spatial reference system information.
+     * @param  unit  the angular unit of the geographic CRS, used for the prime meridian longitude.
+     */
+    Datum(final SpatialReference srs, final Unit<Angle> unit) {
+        super(srs.GetAttrValue("DATUM"), AuthorityCode.create(srs, "DATUM"));
+        ellipsoid     = new Spheroid(srs);
+        primeMeridian = new Meridian(srs, unit);
+    }
+
+    /**
+     * The ellipsoid of a GDAL datum. Axis lengths are always in metres in WKT 1.
+     */
+    private static final class Spheroid extends ReferencingObject implements Ellipsoid {
+        /** The axis lengths in metres. */
+        private final double semiMajor, semiMinor;
+
+        /** The inverse flattening, or 0 for a sphere. */
+        private final double inverseFlattening;
+
+        /** Creates a new ellipsoid for the given GDAL reference system. */
+        Spheroid(final SpatialReference srs) {
+            super(srs.GetAttrValue("SPHEROID"), AuthorityCode.create(srs, "SPHEROID"));
+            semiMajor         = srs.GetSemiMajor();
+            semiMinor         = srs.GetSemiMinor();
+            inverseFlattening = srs.GetInvFlattening();
+        }
+
+        @Override public Unit<Length> getAxisUnit()          {return Units.METRE;}
+        @Override public double       getSemiMajorAxis()     {return semiMajor;}
+        @Override public double       getSemiMinorAxis()     {return semiMinor;}
+        @Override public double       getInverseFlattening() {return isSphere() ? Double.POSITIVE_INFINITY : inverseFlattening;}
+        @Override public boolean      isIvfDefinitive()      {return inverseFlattening != 0;}
+        @Override public boolean      isSphere()             {return inverseFlattening == 0 || semiMajor == semiMinor;}
+        @Override public String       toWKT()                {return "SPHEROID[\"" + getCode() + "\", " + semiMajor + ", " + inverseFlattening + ']';}
+    }
+
+    /**
+     * The prime meridian of a GDAL datum.
+     */
+    private static final class Meridian extends ReferencingObject implements PrimeMeridian {
+        /** Longitude of this meridian relative to Greenwich, in {@link #unit}. */
+        private final double longitude;
+
+        /** The unit of {@link #longitude}. */
+        private final Unit<Angle> unit;
+
+        /** Creates a new prime meridian for the given GDAL reference system. */
+        Meridian(final SpatialReference srs, final Unit<Angle> unit) {
+            super(srs.GetAttrValue("PRIMEM"), AuthorityCode.create(srs, "PRIMEM"));
+            final String value = srs.GetAttrValue("PRIMEM", 1);
+            longitude = (value != null) ? Double.parseDouble(value) : 0;
+            this.unit = unit;
+        }
+
+        @Override public double      getGreenwichLongitude() {return longitude;}
+        @Override public Unit<Angle> getAngularUnit()        {return unit;}
+        @Override public String      toWKT()                 {return "PRIMEM[\"" + getCode() + "\", " + longitude + ']';}
+    }
+
+    @Override public Ellipsoid     getEllipsoid()     {return ellipsoid;}
+    @Override public PrimeMeridian getPrimeMeridian() {return primeMeridian;}
+    @Override public String        toWKT()            {return "DATUM[\"" + getCode() + "\", " + ellipsoid.toWKT() + ']';}
+
+    /** Unimplemented methods. */
+    @Override public InternationalString getAnchorPoint()      {return null;}
+    @Override public Date                getRealizationEpoch() {return null;}
+    @Override public Extent              getDomainOfValidity() {return null;}
+    @Override public InternationalString getScope()            {return null;}
+}
@@ -14,6 +14,7 @@
 package com.geomatys.geoapi.gdal;
 
 import java.io.IOException;
+import org.gdal.gdal.gdal;
 
 
 /**
@@ -43,4 +44,18 @@ public class GDALException extends IOException {
     public GDALException(final String message) {
         super(message);
     }
+
+    /**
+     * Creates an exception for the last error reported by GDAL.
+     *
+     * @param  fallback  the message to use if GDAL did not report any error message.
+     * @return the exception to throw.
+     */
+    static GDALException lastError(final String fallback) {
+        String msg = gdal.GetLastErrorMsg();
+        if (msg == null || msg.isEmpty()) {
+            msg = fallback;
+        }
+        return new GDALException(msg);
+    }
 }
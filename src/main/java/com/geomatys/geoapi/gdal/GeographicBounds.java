@@ -0,0 +1,83 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.awt.geom.Rectangle2D;
+import java.util.Collection;
+import java.util.Collections;
+import org.opengis.metadata.extent.Extent;
+import org.opengis.metadata.extent.GeographicBoundingBox;
+import org.opengis.metadata.extent.TemporalExtent;
+import org.opengis.metadata.extent.VerticalExtent;
+import org.opengis.util.InternationalString;
+
+
+/**
+ * The geographic area of a raster, as an extent made of a single bounding box.
+ * The longitudes and latitudes are relative to the geographic CRS on which the raster CRS is based,
+ * which is usually close enough to WGS84 for the approximate purpose of bounding boxes.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ *
+ * @see RasterMetadata#getExtents()
+ */
+final class GeographicBounds implements Extent, GeographicBoundingBox {
+    /**
+     * The bounds in degrees of longitude and latitude.
+     */
+    private final double west, east, south, north;
+
+    /**
+     * Creates a new extent for the given bounds, with longitudes along <var>x</var> and latitudes along <var>y</var>.
+     *
+     * @param  bounds  the bounds in degrees of longitude and latitude.
+     */
+    GeographicBounds(final Rectangle2D bounds) {
+        west  = bounds.getMinX();
+        east  = bounds.getMaxX();
+        south = bounds.getMinY();
+        north = bounds.getMaxY();
+    }
+
+    /** The geographic area is the only element of this extent. */
+    @Override
+    public Collection<GeographicBoundingBox> getGeographicElements() {
+        return Collections.<GeographicBoundingBox>singleton(this);
+    }
+
+    /** The bounding box encompasses the raster, it does not exclude it. */
+    @Override
+    public Boolean getInclusion() {
+        return Boolean.TRUE;
+    }
+
+    @Override public double getWestBoundLongitude() {return west;}
+    @Override public double getEastBoundLongitude() {return east;}
+    @Override public double getSouthBoundLatitude() {return south;}
+    @Override public double getNorthBoundLatitude() {return north;}
+
+    @Override public InternationalString        getDescription()      {return null;}
+    @Override public Collection<VerticalExtent> getVerticalElements() {return Collections.emptySet();}
+    @Override public Collection<TemporalExtent> getTemporalElements() {return Collections.emptySet();}
+
+    /**
+     * Returns a string representation for debugging purpose.
+     */
+    @Override
+    public String toString() {
+        return "GeographicBoundingBox[west=" + west + ", east=" + east + ", south=" + south + ", north=" + north + ']';
+    }
+}
@@ -14,15 +14,21 @@
 package com.geomatys.geoapi.gdal;
 
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 import org.gdal.gdal.Dataset;
 import org.opengis.metadata.spatial.CellGeometry;
 import org.opengis.metadata.spatial.Dimension;
 import org.opengis.metadata.spatial.DimensionNameType;
 import org.opengis.metadata.spatial.GridSpatialRepresentation;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform2D;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.util.FactoryException;
 
 
 /**
@@ -44,34 +50,145 @@ class GridGeometry implements GridSpatialRepresentation {
     /**
      * Transformation from grid coordinates to geographic or projected coordinates.
      * The (0,0) pixel coordinates map to the top-left pixel corner (not center).
+     * In lazy mode, this is fetched together with {@link #crs} when first needed.
      */
-    private final AffineTransform gridToCRS;
+    private AffineTransform gridToCRS;
 
     /**
      * The coordinate reference system. This is the target of {@link #gridToCRS}.
      * May be {@code null} if the CRS is unknown or unsupported.
      */
-    private final CoordinateReferenceSystem crs;
+    private CoordinateReferenceSystem crs;
+
+    /**
+     * Whether {@link #gridToCRS} and {@link #crs} have been fetched.
+     */
+    private boolean georeferenced;
+
+    /**
+     * The dataset from which to fetch properties when first needed, or {@code null} if all properties
+     * have been fetched at construction time. Only the raster size is fetched eagerly in lazy mode,
+     * since other properties may require more work (e.g. parsing the WKT).
+     */
+    private final DataSet source;
 
     /**
      * Fetches metadata from the given GDAL dataset.
+     * If {@code source} is non-null, only the raster size is fetched now and other properties
+     * will be fetched from {@code source} when first needed.
+     *
+     * @param  source  the dataset from which to fetch properties in lazy mode, or {@code null} for eager mode.
+     * @param  ds      the native handle to use during construction. Caller shall synchronize on that handle.
+     * @throws IOException if the dataset is closed.
      */
-    GridGeometry(final Dataset ds) throws IOException {
+    GridGeometry(final DataSet source, final Dataset ds) throws IOException {
         if (ds == null) {
             throw new IOException("DataSet is closed.");
         }
+        this.source = source;
         xSize    = ds.getRasterXSize();
         ySize    = ds.getRasterYSize();
         numBands = ds.getRasterCount();
+        if (source == null) {
+            fetchGeoreferencing(ds);
+        }
+    }
+
+    /**
+     * Creates a grid geometry from values fetched previously, for example from a {@link MetadataIndex}.
+     *
+     * @param  xSize      number of pixel columns.
+     * @param  ySize      number of pixel rows.
+     * @param  numBands   number of bands.
+     * @param  gridToCRS  conversion from pixel corner coordinates to "real world" coordinates.
+     * @param  crs        the coordinate reference system, or {@code null} if unknown.
+     */
+    GridGeometry(final int xSize, final int ySize, final int numBands,
+                 final AffineTransform gridToCRS, final CoordinateReferenceSystem crs)
+    {
+        this.xSize     = xSize;
+        this.ySize     = ySize;
+        this.numBands  = numBands;
+        this.gridToCRS = new AffineTransform(gridToCRS);
+        this.crs       = crs;
+        georeferenced  = true;
+        source         = null;
+    }
+
+    /**
+     * Fetches the georeferencing information from the given GDAL dataset.
+     */
+    private void fetchGeoreferencing(final Dataset ds) {
         final double[] gt = ds.GetGeoTransform();
         gridToCRS = new AffineTransform(gt[1], gt[4], gt[2], gt[5], gt[0], gt[3]);
         crs = CRS.create(ds.GetProjection());
+        georeferenced = true;
+    }
+
+    /**
+     * Fetches properties from the source dataset in lazy mode. Caller shall synchronize on {@code this}.
+     *
+     * @param  loader  the action to execute on the native handle of the {@linkplain #source}.
+     * @throws UncheckedIOException if the source dataset has been closed.
+     */
+    final void fetch(final Consumer<Dataset> loader) {
+        try {
+            final Dataset ds = source.handle();
+            synchronized (ds) {
+                source.ensureOpen();
+                loader.accept(ds);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Returns the number of pixel columns. */
+    final int getWidth() {
+        return xSize;
+    }
+
+    /** Returns the number of pixel rows. */
+    final int getHeight() {
+        return ySize;
+    }
+
+    /** Returns the number of bands. */
+    final int getNumBands() {
+        return numBands;
+    }
+
+    /**
+     * Returns the transform from grid coordinates to geographic or projected coordinates.
+     * The (0,0) pixel coordinates map to the top-left pixel corner.
+     *
+     * @return the conversion from pixel coordinates to "real world" coordinates.
+     */
+    final synchronized AffineTransform getGridToCRS() {
+        if (!georeferenced) {
+            fetch(this::fetchGeoreferencing);
+        }
+        return new AffineTransform(gridToCRS);
+    }
+
+    /**
+     * Returns the target of {@link #getGridToCRS()}.
+     *
+     * @return the coordinate reference system, or {@code null} if unknown or unsupported.
+     */
+    final synchronized CoordinateReferenceSystem getCoordinateReferenceSystem() {
+        if (!georeferenced) {
+            fetch(this::fetchGeoreferencing);
+        }
+        return crs;
     }
 
     /**
      * Information about the <var>x</var> or <var>y</var> axis of a raster.
+     * The resolution is computed from the enclosing grid geometry only when requested,
+     * for avoiding to fetch the georeferencing in lazy mode when only the size is desired.
      */
-    private static final class Axis implements Dimension {
+    private final class Axis implements Dimension {
         /** 0 for <var>x</var>, 1 for <var>y</var> (more may be added in the future). */
         private final byte dimension;
 
@@ -98,9 +215,9 @@ class GridGeometry implements GridSpatialRepresentation {
             return size;
         }
 
-        /** Degree of detail in the grid dataset. */
+        /** Degree of detail in the grid dataset, or {@code null} if the CRS is unknown. */
         @Override public Double getResolution() {
-            return null;
+            return resolution(dimension);
         }
 
         /** String representation for debugging purpose. */
@@ -120,13 +237,33 @@ class GridGeometry implements GridSpatialRepresentation {
     }
 
     /**
-     * Returns information about each axes of the grid.
+     * Returns information about each axes of the grid. The resolution of each axis is the length
+     * of a pixel side in units of the coordinate reference system, or {@code null} if the CRS is unknown.
      */
     @Override
     public final List<Dimension> getAxisDimensionProperties() {
         return Arrays.<Dimension>asList(new Axis((byte) 0, xSize), new Axis((byte) 1, ySize));
     }
 
+    /**
+     * Returns the length of a pixel side along the given dimension in units of the coordinate reference system.
+     * In lazy mode, this method fetches the georeferencing if not already done.
+     *
+     * @param  dimension  0 for <var>x</var>, 1 for <var>y</var>.
+     * @return the resolution along the given dimension, or {@code null} if the CRS is unknown.
+     */
+    private Double resolution(final int dimension) {
+        if (getCoordinateReferenceSystem() == null) {
+            return null;
+        }
+        final AffineTransform tr = getGridToCRS();
+        switch (dimension) {
+            case 0:  return Math.hypot(tr.getScaleX(), tr.getShearY());
+            case 1:  return Math.hypot(tr.getShearX(), tr.getScaleY());
+            default: return null;
+        }
+    }
+
     /**
      * Tells whether each point represents a cell, and area or a volume.
      */
@@ -135,11 +272,78 @@ class GridGeometry implements GridSpatialRepresentation {
         return null;
     }
 
+    /**
+     * Returns the conversion from pixel coordinates to "real world" coordinates as a math transform.
+     *
+     * @return the grid to CRS transform.
+     */
+    final MathTransform2D getGridToCRSTransform() {
+        return new AffineMathTransform(getGridToCRS());
+    }
+
+    /**
+     * Number of points per side of the grid where to evaluate coordinates when the footprint
+     * is transformed to another CRS. Intermediate points are needed for curved map projections.
+     */
+    private static final int FOOTPRINT_SAMPLES = 16;
+
+    /**
+     * Returns the bounding box of the whole grid in the given coordinate reference system. If the target
+     * is {@code null} or the CRS of this grid, this is the bounds of the grid transformed by {@link #getGridToCRS()}.
+     * Otherwise points along the grid borders are transformed with GDAL and their bounds are returned.
+     *
+     * @param  target  the CRS of the bounding box, or {@code null} for the CRS of this grid.
+     * @return the footprint of the grid in the given CRS, or {@code null} if this grid has no CRS.
+     * @throws FactoryException if GDAL can not create the transformation to the target CRS.
+     * @throws TransformException if no border point can be transformed.
+     */
+    final Rectangle2D getFootprint(final CoordinateReferenceSystem target) throws FactoryException, TransformException {
+        final CoordinateReferenceSystem source = getCoordinateReferenceSystem();
+        if (source == null) {
+            return null;
+        }
+        final AffineTransform tr = getGridToCRS();
+        if (target == null || CRS.equivalent(target, source)) {
+            return tr.createTransformedShape(new Rectangle2D.Double(0, 0, xSize, ySize)).getBounds2D();
+        }
+        final double[] points = new double[FOOTPRINT_SAMPLES * 8];
+        int n = 0;
+        for (int i=0; i<FOOTPRINT_SAMPLES; i++) {
+            final double fx = (double) xSize * i / FOOTPRINT_SAMPLES;
+            final double fy = (double) ySize * i / FOOTPRINT_SAMPLES;
+            points[n++] = fx;            points[n++] = 0;               // Top border, from left.
+            points[n++] = xSize;         points[n++] = fy;              // Right border, from top.
+            points[n++] = xSize - fx;    points[n++] = ySize;           // Bottom border, from right.
+            points[n++] = 0;             points[n++] = ySize - fy;      // Left border, from bottom.
+        }
+        tr.transform(points, 0, points, 0, n / 2);
+        try (OSRTransform transform = OSRTransform.create(source, target)) {
+            transform.transform(points, 0, points, 0, n / 2);
+        }
+        double xmin = Double.POSITIVE_INFINITY, ymin = Double.POSITIVE_INFINITY;
+        double xmax = Double.NEGATIVE_INFINITY, ymax = Double.NEGATIVE_INFINITY;
+        for (int i=0; i<n; i += 2) {
+            final double x = points[i];
+            final double y = points[i+1];
+            if (!Double.isNaN(x) && !Double.isNaN(y)) {
+                if (x < xmin) xmin = x;
+                if (x > xmax) xmax = x;
+                if (y < ymin) ymin = y;
+                if (y > ymax) ymax = y;
+            }
+        }
+        if (xmin > xmax) {
+            throw new TransformException("No point of the grid border can be transformed.");
+        }
+        return new Rectangle2D.Double(xmin, ymin, xmax - xmin, ymax - ymin);
+    }
+
     /**
      * Indication of whether or not parameters for transformation exists.
+     * This is the case when the "grid to CRS" transform has a known target CRS.
      */
     @Override
     public final boolean isTransformationParameterAvailable() {
-        return false;
+        return getCoordinateReferenceSystem() != null;
     }
 }
@@ -0,0 +1,133 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import org.opengis.metadata.Metadata;
+
+
+/**
+ * Builds metadata for many files concurrently. Each file is opened with {@link DataSet},
+ * its {@linkplain DataSet#getMetadata() metadata} is given to a consumer as soon as it is ready,
+ * then the dataset is closed. Files that can not be read do not stop the harvest: their exceptions
+ * are collected and returned at the end.
+ *
+ * <p>The number of files processed at the same time is bounded by the parallelism given at construction
+ * time, and paths are consumed lazily from the given source. Consequently this class can harvest trees
+ * of millions of files without holding all paths in memory.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final class Harvester {
+    /**
+     * Maximal number of files processed at the same time.
+     */
+    private final int parallelism;
+
+    /**
+     * Creates a new harvester.
+     *
+     * @param  parallelism  maximal number of files processed at the same time.
+     */
+    public Harvester(final int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive.");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Harvests metadata of all regular files accepted by the given filter in a directory tree.
+     * The filter can be used for excluding auxiliary files such as {@code *.aux.xml} or {@code *.ovr}.
+     *
+     * @param  root      root of the directory tree to scan.
+     * @param  filter    the files to harvest, or {@code null} for all regular files.
+     * @param  consumer  the consumer of metadata, invoked concurrently from worker threads.
+     * @return exceptions that occurred for each file that can not be read, or an empty map if none.
+     * @throws IOException if the directory tree can not be walked, or the thread has been interrupted.
+     */
+    public Map<Path,Exception> harvest(final Path root, final Predicate<Path> filter,
+            final BiConsumer<Path,Metadata> consumer) throws IOException
+    {
+        try (Stream<Path> files = Files.walk(root)) {
+            Stream<Path> accepted = files.filter(Files::isRegularFile);
+            if (filter != null) {
+                accepted = accepted.filter(filter);
+            }
+            return harvest(accepted::iterator, consumer);
+        }
+    }
+
+    /**
+     * Harvests metadata of all given files. Files are taken from the given iterable only when a worker
+     * thread is ready to process them. The consumer is invoked from worker threads as soon as the
+     * metadata of a file is ready, so it may be invoked concurrently and in any order.
+     *
+     * @param  files     the files to harvest.
+     * @param  consumer  the consumer of metadata, invoked concurrently from worker threads.
+     * @return exceptions that occurred for each file that can not be read, or an empty map if none.
+     * @throws IOException if the iteration over the files failed with an {@link UncheckedIOException},
+     *         or the thread has been interrupted while waiting for the harvest to complete.
+     *         In the former case, this method waits for the files already submitted before to throw.
+     */
+    public Map<Path,Exception> harvest(final Iterable<Path> files, final BiConsumer<Path,Metadata> consumer)
+            throws IOException
+    {
+        final Map<Path,Exception> failures = new ConcurrentHashMap<>();
+        final Semaphore permits = new Semaphore(parallelism);
+        final ExecutorService executor = new ForkJoinPool(parallelism);
+        try {
+            final Iterator<Path> it = files.iterator();
+            while (it.hasNext()) {
+                final Path file = it.next();
+                permits.acquire();
+                executor.execute(() -> {
+                    try (DataSet ds = new DataSet(file)) {
+                        consumer.accept(file, ds.getMetadata());
+                    } catch (IOException | RuntimeException e) {
+                        failures.put(file, e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+            permits.acquire(parallelism);           // Wait for all tasks to complete.
+        } catch (UncheckedIOException e) {
+            // The iterator failed, for example on an unreadable directory. Do not leave tasks running.
+            permits.acquireUninterruptibly(parallelism);
+            throw e.getCause();
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            throw (IOException) new InterruptedIOException("Harvest interrupted.").initCause(e);
+        } finally {
+            executor.shutdown();
+        }
+        return failures;
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Executes blocking GDAL operations on a bounded number of dedicated threads and returns their results
+ * as {@link CompletableFuture}s. This allows non-blocking applications to open and read datasets without
+ * blocking their own threads, and without creating more I/O threads than the machine can use.
+ *
+ * <ul>
+ *   <li><b>Per-file queueing:</b> operations on the same dataset are executed in submission order, one at a time,
+ *       since they would otherwise block each other on the dataset lock while holding threads. Queues of different
+ *       datasets are served in turn. Datasets opened in {@link DataSet.Option#CONCURRENT_READS} mode are not queued.</li>
+ *   <li><b>Backpressure:</b> the number of pending operations is bounded. When the bound is reached, new operations
+ *       fail immediately with a {@link RejectedExecutionException} instead of blocking the caller.</li>
+ *   <li><b>Cancellation:</b> an operation whose future has been cancelled before it started is not executed,
+ *       and its permit is released immediately. Native calls already started can not be interrupted.</li>
+ * </ul>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final class IOScheduler implements Closeable {
+    /**
+     * The scheduler used by {@link DataSet} asynchronous methods, created when first needed.
+     */
+    private static IOScheduler instance;
+
+    /**
+     * The threads executing the operations.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Permits for pending operations, used for backpressure.
+     */
+    private final Semaphore permits;
+
+    /**
+     * Operations waiting for their turn, keyed by dataset or file.
+     * All accesses shall be synchronized on this map.
+     */
+    private final Map<Object,Queue> queues;
+
+    /**
+     * Whether this scheduler has been closed. Shall be accessed in a block synchronized on {@link #queues}.
+     */
+    private boolean closed;
+
+    /**
+     * An operation together with the future to complete with its result.
+     * The permit is released before the future is completed, so that a caller can submit
+     * a new operation from a dependent stage without being rejected because of this job.
+     */
+    private final class Job<T> implements Runnable {
+        /** The future to complete. */
+        final CompletableFuture<T> future;
+
+        /** The operation to execute. */
+        private final Callable<T> task;
+
+        /** Whether the permit of this job has been released. */
+        private final AtomicBoolean released;
+
+        /** Creates a new job for the given operation. */
+        Job(final CompletableFuture<T> future, final Callable<T> task) {
+            this.future = future;
+            this.task   = task;
+            released    = new AtomicBoolean();
+            future.whenComplete((r, e) -> release());       // For cancellation before the job runs.
+        }
+
+        /** Releases the permit of this job if not already done. */
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+
+        /** Executes the operation unless the future has been cancelled. */
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                return;
+            }
+            T result = null;
+            Throwable failure = null;
+            try {
+                result = task.call();
+            } catch (Throwable e) {       // Including OutOfMemoryError, otherwise join() would block forever.
+                failure = e;
+            } finally {
+                release();
+            }
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(result);
+            }
+        }
+
+        /** Fails the future without executing the operation. */
+        void reject(final RuntimeException cause) {
+            release();
+            future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * The operations waiting for their turn on the same dataset. A queue is submitted to the executor
+     * for running one operation, then resubmitted at the end of the executor queue if there is more.
+     */
+    private final class Queue implements Runnable {
+        /** The key of this queue in the {@link IOScheduler#queues} map. */
+        private final Object key;
+
+        /** The operations waiting for execution. */
+        final ArrayDeque<Job<?>> jobs;
+
+        /** Creates an empty queue for the given key. */
+        Queue(final Object key) {
+            this.key = key;
+            jobs = new ArrayDeque<>();
+        }
+
+        /** Executes the next operation, then reschedules this queue if there is more. */
+        @Override
+        public void run() {
+            final Job<?> job;
+            synchronized (queues) {
+                job = jobs.poll();
+            }
+            try {
+                job.run();
+            } finally {
+                synchronized (queues) {
+                    if (jobs.isEmpty()) {
+                        queues.remove(key);
+                        if (closed && queues.isEmpty()) {
+                            executor.shutdown();
+                        }
+                    } else try {
+                        executor.execute(this);
+                    } catch (RejectedExecutionException e) {
+                        queues.remove(key);
+                        for (final Job<?> pending : jobs) {
+                            pending.reject(e);
+                        }
+                        jobs.clear();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a new scheduler.
+     *
+     * @param  threads     maximal number of operations executed at the same time.
+     * @param  maxPending  maximal number of operations waiting or in progress.
+     */
+    public IOScheduler(final int threads, final int maxPending) {
+        if (threads <= 0 || maxPending <= 0) {
+            throw new IllegalArgumentException("Number of threads and pending operations must be positive.");
+        }
+        final AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), (r) -> {
+            final Thread t = new Thread(r, "GDAL I/O #" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        permits = new Semaphore(maxPending);
+        queues  = new HashMap<>();
+    }
+
+    /**
+     * Returns the scheduler used by the asynchronous methods of {@link DataSet}.
+     * This scheduler uses one thread per processor and accepts up to 1024 pending operations.
+     *
+     * @return the default scheduler.
+     */
+    public static synchronized IOScheduler getDefault() {
+        if (instance == null) {
+            instance = new IOScheduler(Runtime.getRuntime().availableProcessors(), 1024);
+        }
+        return instance;
+    }
+
+    /**
+     * Submits an operation to execute on the I/O threads. If the key is non-null, the operation
+     * is executed after all operations previously submitted with an equal key.
+     *
+     * @param  <T>   the type of the operation result.
+     * @param  key   the dataset or file on which the operation is executed, or {@code null} if it can run concurrently.
+     * @param  task  the operation to execute.
+     * @return a future completed with the operation result, or completed exceptionally with a
+     *         {@link RejectedExecutionException} if there is too many pending operations.
+     */
+    public <T> CompletableFuture<T> submit(final Object key, final Callable<T> task) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        if (!permits.tryAcquire()) {
+            future.completeExceptionally(new RejectedExecutionException("Too many pending I/O operations."));
+            return future;
+        }
+        final Job<T> job = new Job<>(future, task);
+        synchronized (queues) {
+            try {
+                if (closed) {
+                    throw new RejectedExecutionException("IOScheduler is closed.");
+                }
+                if (key == null) {
+                    executor.execute(job);
+                } else {
+                    Queue queue = queues.get(key);
+                    if (queue == null) {
+                        queue = new Queue(key);
+                        executor.execute(queue);
+                        queues.put(key, queue);
+                    }
+                    queue.jobs.add(job);
+                }
+            } catch (RejectedExecutionException e) {
+                job.reject(e);
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Opens a dataset on the I/O threads. Opening of the same file are queued.
+     *
+     * @param  file     the file to open.
+     * @param  options  options for opening the dataset.
+     * @return a future completed with the dataset, which shall be closed by the caller.
+     */
+    public CompletableFuture<DataSet> open(final Path file, final DataSet.Option... options) {
+        return submit(file.toAbsolutePath().normalize(), () -> new DataSet(file, options));
+    }
+
+    /**
+     * Returns the number of operations waiting or in progress.
+     *
+     * @return number of pending operations.
+     */
+    public int getPendingCount() {
+        synchronized (queues) {
+            int n = executor.getQueue().size() + executor.getActiveCount();
+            for (final Queue queue : queues.values()) {
+                n += queue.jobs.size() - 1;             // The queue itself is counted in the executor.
+            }
+            return n;
+        }
+    }
+
+    /**
+     * Stops accepting new operations. Operations already submitted are still executed,
+     * then the threads are terminated.
+     */
+    @Override
+    public void close() {
+        synchronized (queues) {
+            closed = true;
+            if (queues.isEmpty()) {
+                executor.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import org.gdal.osr.SpatialReference;
+
+
+/**
+ * Cache of the EPSG codes identified for coordinate reference systems. Identification with
+ * GDAL {@code AutoIdentifyEPSG()} is expensive since it compares the CRS against the EPSG database,
+ * but the same few CRS are found in most files. This cache remembers the result of each identification,
+ * including failures, keyed by Well Known Text normalized by removal of white spaces.
+ *
+ * <p>The cache can be saved in a properties file and loaded in a next run,
+ * so that a harvest does not pay the identification cost again:</p>
+ *
+ * <blockquote><pre>if (Files.exists(file)) IdentificationCache.load(file);
+ *harvester.harvest(directory, null, consumer);
+ *IdentificationCache.save(file);</pre></blockquote>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final class IdentificationCache {
+    /**
+     * Identifiers as {@code "authority:code"} strings keyed by normalized WKT.
+     * An empty string means that the CRS can not be identified.
+     * This map is not bounded since the number of distinct CRS is small in practice.
+     */
+    private static final ConcurrentHashMap<String,String> ENTRIES = new ConcurrentHashMap<>();
+
+    /**
+     * Do not allow instantiation of this class.
+     */
+    private IdentificationCache() {
+    }
+
+    /**
+     * Returns the identifier of the given coordinate reference system, identifying it if not already cached.
+     * If the WKT does not declare an authority code, this method invokes {@code AutoIdentifyEPSG()}.
+     * Note that the latter may modify the given GDAL object by adding {@code AUTHORITY} elements.
+     *
+     * @param  wkt  the Well Known Text used for constructing the GDAL {@code SpatialReference}.
+     * @param  srs  the GDAL spatial reference system information.
+     * @return the identifier, or {@code null} if the CRS can not be identified.
+     */
+    static AuthorityCode lookup(final String wkt, final SpatialReference srs) {
+        final String key = normalize(wkt);
+        String identifier = ENTRIES.get(key);
+        final Metrics metrics = DataSet.getMetrics();
+        metrics.cacheAccess(Metrics.Cache.IDENTIFICATION, identifier != null);
+        if (identifier == null) {
+            final long start = System.nanoTime();
+            AuthorityCode code = AuthorityCode.create(srs, null);
+            if (code == null) {
+                try {
+                    if (srs.AutoIdentifyEPSG() == 0) {
+                        code = AuthorityCode.create(srs, null);
+                    }
+                } catch (RuntimeException e) {
+                    // GDAL throws an exception instead of returning an error code if exceptions are enabled.
+                }
+            }
+            metrics.record(Metrics.Operation.CRS_IDENTIFY, System.nanoTime() - start, 0);
+            identifier = (code != null) ? code.toString() : "";
+            ENTRIES.putIfAbsent(key, identifier);
+            return code;
+        }
+        return AuthorityCode.parse(identifier);
+    }
+
+    /**
+     * Returns the given Well Known Text without the white spaces outside quoted texts.
+     * This allows to recognize the same CRS formatted on one line or on many lines.
+     *
+     * @param  wkt  the Well Known Text to normalize.
+     * @return the normalized Well Known Text.
+     */
+    static String normalize(final String wkt) {
+        final StringBuilder buffer = new StringBuilder(wkt.length());
+        boolean quoted = false;
+        for (int i=0; i<wkt.length(); i++) {
+            final char c = wkt.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && Character.isWhitespace(c)) {
+                continue;
+            }
+            buffer.append(c);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Adds the identifications saved in the given properties file. Entries already in the cache are kept.
+     *
+     * @param  file  the file written by a previous call to {@link #save(Path)}.
+     * @throws IOException if the file can not be read.
+     */
+    public static void load(final Path file) throws IOException {
+        final Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        for (final Map.Entry<Object,Object> entry : properties.entrySet()) {
+            ENTRIES.putIfAbsent(normalize((String) entry.getKey()), (String) entry.getValue());
+        }
+    }
+
+    /**
+     * Saves all identifications in the given properties file, replacing the file if it exists.
+     *
+     * @param  file  the file where to save the identifications.
+     * @throws IOException if the file can not be written.
+     */
+    public static void save(final Path file) throws IOException {
+        final Properties properties = new Properties();
+        properties.putAll(ENTRIES);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            properties.store(out, "EPSG codes of coordinate reference systems keyed by Well Known Text.");
+        }
+    }
+
+    /**
+     * Returns the number of coordinate reference systems in the cache, including those that can not be identified.
+     *
+     * @return number of cached identifications.
+     */
+    public static int size() {
+        return ENTRIES.size();
+    }
+
+    /**
+     * Removes all identifications from the cache.
+     */
+    public static void clear() {
+        ENTRIES.clear();
+    }
+}
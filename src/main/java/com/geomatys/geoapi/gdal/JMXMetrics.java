@@ -0,0 +1,189 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+
+/**
+ * Metrics accumulated in memory and exposed as a JMX MXBean. Counters are {@link LongAdder}s,
+ * so recording a measurement from many threads does not cause contention.
+ *
+ * <p>Typical usage:</p>
+ * <pre>JMXMetrics.register();</pre>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final class JMXMetrics implements Metrics, MetricsMXBean {
+    /**
+     * Name under which the metrics are registered in the platform MBean server.
+     */
+    public static final String NAME = "com.geomatys.geoapi.gdal:type=Metrics";
+
+    /**
+     * Number of buckets in latency histograms: one per power of 2 of nanoseconds.
+     */
+    private static final int NUM_BUCKETS = Long.SIZE;
+
+    /**
+     * Number of executions, total duration and bytes read, indexed by operation ordinal.
+     */
+    private final LongAdder[] counts, nanos, bytes;
+
+    /**
+     * Latency histograms indexed by operation ordinal, then by bucket.
+     */
+    private final LongAdder[][] histograms;
+
+    /**
+     * Number of hits and misses indexed by cache ordinal.
+     */
+    private final LongAdder[] hits, misses;
+
+    /**
+     * Creates new metrics with all counters set to zero.
+     */
+    public JMXMetrics() {
+        final int n = Operation.values().length;
+        counts     = create(n);
+        nanos      = create(n);
+        bytes      = create(n);
+        histograms = new LongAdder[n][];
+        for (int i=0; i<n; i++) {
+            histograms[i] = create(NUM_BUCKETS);
+        }
+        hits   = create(Cache.values().length);
+        misses = create(Cache.values().length);
+    }
+
+    /**
+     * Creates an array of counters.
+     */
+    private static LongAdder[] create(final int length) {
+        final LongAdder[] adders = new LongAdder[length];
+        for (int i=0; i<length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Creates new metrics, registers them in the platform MBean server and installs them
+     * as the metrics of all datasets.
+     *
+     * @return the registered metrics.
+     * @throws JMException if the metrics can not be registered.
+     */
+    public static JMXMetrics register() throws JMException {
+        final JMXMetrics metrics = new JMXMetrics();
+        ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(NAME));
+        DataSet.setMetrics(metrics);
+        return metrics;
+    }
+
+    /**
+     * Records the execution of an operation.
+     */
+    @Override
+    public void record(final Operation operation, final long nanos, final long bytes) {
+        final int i = operation.ordinal();
+        counts[i].increment();
+        this.nanos[i].add(nanos);
+        if (bytes != 0) {
+            this.bytes[i].add(bytes);
+        }
+        histograms[i][(nanos > 0) ? (Long.SIZE - 1) - Long.numberOfLeadingZeros(nanos) : 0].increment();
+    }
+
+    /**
+     * Records a cache lookup.
+     */
+    @Override
+    public void cacheAccess(final Cache cache, final boolean hit) {
+        (hit ? hits : misses)[cache.ordinal()].increment();
+    }
+
+    @Override
+    public Map<String,Long> getCounts() {
+        return sums(counts);
+    }
+
+    @Override
+    public Map<String,Long> getBytesRead() {
+        return sums(bytes);
+    }
+
+    @Override
+    public Map<String,Double> getMeanLatencies() {
+        final Map<String,Double> values = new LinkedHashMap<>();
+        for (final Operation operation : Operation.values()) {
+            final int i = operation.ordinal();
+            values.put(operation.name(), nanos[i].sum() / (1000.0 * counts[i].sum()));
+        }
+        return values;
+    }
+
+    @Override
+    public Map<String,long[]> getLatencyHistograms() {
+        final Map<String,long[]> values = new LinkedHashMap<>();
+        for (final Operation operation : Operation.values()) {
+            final LongAdder[] buckets = histograms[operation.ordinal()];
+            final long[] histogram = new long[buckets.length];
+            for (int i=0; i<histogram.length; i++) {
+                histogram[i] = buckets[i].sum();
+            }
+            values.put(operation.name(), histogram);
+        }
+        return values;
+    }
+
+    @Override
+    public Map<String,Double> getCacheHitRatios() {
+        final Map<String,Double> values = new LinkedHashMap<>();
+        for (final Cache cache : Cache.values()) {
+            final int i = cache.ordinal();
+            final long h = hits[i].sum();
+            values.put(cache.name(), h / (double) (h + misses[i].sum()));
+        }
+        return values;
+    }
+
+    /**
+     * Returns the sums of the given counters keyed by operation name.
+     */
+    private static Map<String,Long> sums(final LongAdder[] adders) {
+        final Map<String,Long> values = new LinkedHashMap<>();
+        for (final Operation operation : Operation.values()) {
+            values.put(operation.name(), adders[operation.ordinal()].sum());
+        }
+        return values;
+    }
+
+    @Override
+    public void reset() {
+        for (final LongAdder[] adders : new LongAdder[][] {counts, nanos, bytes, hits, misses}) {
+            for (final LongAdder adder : adders) adder.reset();
+        }
+        for (final LongAdder[] adders : histograms) {
+            for (final LongAdder adder : adders) adder.reset();
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.awt.geom.AffineTransform;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import org.opengis.metadata.Metadata;
+import org.opengis.metadata.spatial.CellGeometry;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+
+/**
+ * A persistent index of the metadata extracted from raster files. Entries are keyed by the file
+ * absolute path, size and modification time. As long as a file is unchanged, {@link #getMetadata(Path)}
+ * answers from the index without opening the file with GDAL. Otherwise the file is opened with
+ * {@link DataSet} and the index is updated.
+ *
+ * <p>The index is loaded in memory at construction time and written back in a compact binary file
+ * by {@link #flush()} or {@link #close()}. The file is replaced atomically, so an interrupted write
+ * does not corrupt a previous version of the index.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final class MetadataIndex implements Closeable {
+    /**
+     * Magic number at the beginning of index files ("GDMI" in ASCII).
+     */
+    private static final int MAGIC = 0x47444D49;
+
+    /**
+     * Version of the file format, to increment if the format changes.
+     */
+    private static final short VERSION = 1;
+
+    /**
+     * Values of {@link CellGeometry} in the order of their serialized code.
+     * The code 0 is reserved for {@code null}.
+     */
+    private static final CellGeometry[] CELL_GEOMETRIES = {null, CellGeometry.POINT, CellGeometry.AREA};
+
+    /**
+     * Metadata values of a file, together with the file size and modification time at extraction time.
+     */
+    private static final class Entry {
+        /** File size and modification time when the metadata have been extracted. */
+        final long size, modified;
+
+        /** The metadata, created from the serialized values or extracted from the file. */
+        final RasterMetadata metadata;
+
+        /** Creates a new entry. */
+        Entry(final long size, final long modified, final RasterMetadata metadata) {
+            this.size     = size;
+            this.modified = modified;
+            this.metadata = metadata;
+        }
+    }
+
+    /**
+     * The file where the index is stored.
+     */
+    private final Path indexFile;
+
+    /**
+     * All entries keyed by absolute normalized path.
+     */
+    private final Map<String,Entry> entries;
+
+    /**
+     * Whether the entries have been modified since the last write.
+     */
+    private boolean modified;
+
+    /**
+     * Creates an index stored in the given file. If the file exists, its content is loaded.
+     *
+     * @param  indexFile  the file where the index is stored.
+     * @throws IOException if the index file exists but can not be read.
+     */
+    public MetadataIndex(final Path indexFile) throws IOException {
+        this.indexFile = indexFile;
+        entries = new HashMap<>();
+        if (Files.exists(indexFile)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+                if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                    throw new IOException("Unsupported index format in \"" + indexFile + "\".");
+                }
+                for (int n = in.readInt(); --n >= 0;) {
+                    final String file    = readString(in);
+                    final long   size    = in.readLong();
+                    final long   time    = in.readLong();
+                    final int    xSize   = in.readInt();
+                    final int    ySize   = in.readInt();
+                    final int    bands   = in.readInt();
+                    final double[] m     = new double[6];
+                    for (int i=0; i<m.length; i++) {
+                        m[i] = in.readDouble();
+                    }
+                    final String wkt  = readString(in);
+                    final int    cell = in.readUnsignedByte();
+                    final String desc = readString(in);
+                    if (cell >= CELL_GEOMETRIES.length) {
+                        throw new IOException("Corrupted index file \"" + indexFile + "\".");
+                    }
+                    entries.put(file, new Entry(size, time, new RasterMetadata(xSize, ySize, bands,
+                            new AffineTransform(m), CRS.create(wkt), desc, CELL_GEOMETRIES[cell])));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the metadata of the given file, from the index if the file is unchanged
+     * or by opening the file otherwise.
+     *
+     * @param  file  the file for which to get the metadata.
+     * @return the metadata of the given file.
+     * @throws IOException if the file can not be read.
+     */
+    public Metadata getMetadata(final Path file) throws IOException {
+        final Path path = file.toAbsolutePath().normalize();
+        final String key = path.toString();
+        final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        final long size = attributes.size();
+        final long time = attributes.lastModifiedTime().toMillis();
+        synchronized (this) {
+            final Entry entry = entries.get(key);
+            if (entry != null && entry.size == size && entry.modified == time) {
+                return entry.metadata;
+            }
+        }
+        final RasterMetadata metadata;
+        try (DataSet ds = new DataSet(file)) {
+            metadata = (RasterMetadata) ds.getMetadata();
+        }
+        synchronized (this) {
+            entries.put(key, new Entry(size, time, metadata));
+            modified = true;
+        }
+        return metadata;
+    }
+
+    /**
+     * Returns the number of files in this index.
+     *
+     * @return number of indexed files.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Writes the index to its file if it has been modified since the last write.
+     *
+     * @throws IOException if an error occurred while writing the index.
+     */
+    public synchronized void flush() throws IOException {
+        if (!modified) {
+            return;
+        }
+        final Path parent = indexFile.toAbsolutePath().getParent();
+        final Path tmp = Files.createTempFile(parent, indexFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeShort(VERSION);
+                out.writeInt(entries.size());
+                final double[] m = new double[6];
+                for (final Map.Entry<String,Entry> e : entries.entrySet()) {
+                    final Entry entry = e.getValue();
+                    final RasterMetadata metadata = entry.metadata;
+                    writeString(out, e.getKey());
+                    out.writeLong(entry.size);
+                    out.writeLong(entry.modified);
+                    out.writeInt(metadata.getWidth());
+                    out.writeInt(metadata.getHeight());
+                    out.writeInt(metadata.getNumBands());
+                    metadata.getGridToCRS().getMatrix(m);
+                    for (final double v : m) {
+                        out.writeDouble(v);
+                    }
+                    final CoordinateReferenceSystem crs = metadata.getCoordinateReferenceSystem();
+                    writeString(out, (crs != null) ? crs.toWKT() : null);
+                    final CellGeometry cellGeometry = metadata.getCellGeometry();
+                    int cell = 0;
+                    for (int i=1; i<CELL_GEOMETRIES.length; i++) {
+                        if (CELL_GEOMETRIES[i] == cellGeometry) cell = i;
+                    }
+                    out.writeByte(cell);
+                    writeString(out, metadata.description());
+                }
+            }
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        modified = false;
+    }
+
+    /**
+     * Writes the index to its file if it has been modified.
+     *
+     * @throws IOException if an error occurred while writing the index.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    /**
+     * Writes a string which may be null or longer than the 64 kb limit of {@link DataOutputStream#writeUTF(String)}.
+     */
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+     */
+    private static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,648 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.awt.geom.AffineTransform;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.function.BiConsumer;
+import javax.measure.Unit;
+import org.opengis.metadata.Metadata;
+import org.opengis.metadata.content.RangeDimension;
+import org.opengis.metadata.extent.Extent;
+import org.opengis.metadata.extent.GeographicBoundingBox;
+import org.opengis.metadata.extent.GeographicExtent;
+import org.opengis.metadata.spatial.CellGeometry;
+import org.opengis.referencing.ReferenceIdentifier;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.cs.CoordinateSystem;
+import org.opengis.referencing.cs.CoordinateSystemAxis;
+
+
+/**
+ * Writes the metadata of rasters as ISO 19139 XML, JSON or newline-delimited JSON directly in an output stream.
+ * Each record is encoded from the metadata fields as they are read, without intermediate document tree and
+ * without reflection, so the encoding cost stays small compared to the cost of opening the files.
+ *
+ * <p>A single writer can encode a whole harvest in one document. In XML, records are {@code gmd:MD_Metadata}
+ * elements inside a {@code metadataCollection} root element. In JSON, records are objects inside an array.
+ * In NDJSON, each record is a JSON object on its own line. In non-batch mode, the document contains exactly
+ * one record, which is the document root.</p>
+ *
+ * <p>This writer can be used as the consumer of a {@link Harvester}, in which case the path of each file is written
+ * as the metadata file identifier. Records are written atomically, so concurrent calls do not interleave.</p>
+ *
+ * <blockquote><pre>try (MetadataWriter writer = new MetadataWriter(out, MetadataWriter.Format.NDJSON, true)) {
+ *    harvester.harvest(directory, null, writer);
+ *}</pre></blockquote>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final class MetadataWriter implements BiConsumer<Path,Metadata>, Flushable, Closeable {
+    /**
+     * The output formats.
+     */
+    public enum Format {
+        /** ISO 19139 XML. */
+        XML,
+
+        /** JSON with property names from ISO 19115. */
+        JSON,
+
+        /** Newline-delimited JSON, with one record per line. Always in batch mode. */
+        NDJSON
+    }
+
+    /**
+     * Location of ISO 19139 code lists.
+     */
+    private static final String CODE_LISTS = "http://standards.iso.org/iso/19139/resources/gmxCodelists.xml#";
+
+    /**
+     * Namespace declarations of ISO 19139 documents.
+     */
+    private static final String NAMESPACES = " xmlns:gmd=\"http://www.isotc211.org/2005/gmd\""
+                                           + " xmlns:gco=\"http://www.isotc211.org/2005/gco\"";
+
+    /**
+     * Where to write the records.
+     */
+    private final Writer out;
+
+    /**
+     * The output format.
+     */
+    private final Format format;
+
+    /**
+     * Whether many records can be written in the same document.
+     */
+    private final boolean batch;
+
+    /**
+     * Number of records written so far.
+     */
+    private long count;
+
+    /**
+     * In JSON, whether the next property is the first one of the current object.
+     */
+    private boolean first;
+
+    /**
+     * Whether {@link #close()} has been invoked.
+     */
+    private boolean closed;
+
+    /**
+     * Creates a new writer.
+     *
+     * @param  out     where to write the records, in UTF-8 encoding.
+     * @param  format  the output format.
+     * @param  batch   whether the document may contain many records. Ignored in NDJSON format.
+     */
+    public MetadataWriter(final OutputStream out, final Format format, final boolean batch) {
+        this.out    = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 65536);
+        this.format = format;
+        this.batch  = batch || format == Format.NDJSON;
+    }
+
+    /**
+     * Writes the metadata of the given file, using its path as the file identifier.
+     * This method is convenient as a {@link Harvester} consumer.
+     *
+     * @param  file      the file described by the metadata.
+     * @param  metadata  the metadata to write.
+     * @throws UncheckedIOException if an error occurred while writing.
+     */
+    @Override
+    public void accept(final Path file, final Metadata metadata) {
+        try {
+            write(file.toString(), metadata);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the given metadata.
+     *
+     * @param  identifier  the metadata file identifier, or {@code null} if none.
+     * @param  metadata    the metadata to write, as created by {@link DataSet#getMetadata()} or {@link MetadataIndex}.
+     * @throws IllegalArgumentException if the metadata has not been created by this package.
+     * @throws IllegalStateException if a second record is written in non-batch mode.
+     * @throws IOException if an error occurred while writing, or this writer is closed.
+     */
+    public synchronized void write(final String identifier, final Metadata metadata) throws IOException {
+        if (closed) {
+            throw new IOException("The metadata writer is closed.");
+        }
+        if (!(metadata instanceof RasterMetadata)) {
+            throw new IllegalArgumentException("Unsupported metadata implementation.");
+        }
+        if (count != 0 && !batch) {
+            throw new IllegalStateException("Can not write more than one record in non-batch mode.");
+        }
+        final RasterMetadata md = (RasterMetadata) metadata;
+        switch (format) {
+            case XML: {
+                if (count == 0) {
+                    out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+                    if (batch) out.write("<metadataCollection" + NAMESPACES + ">\n");
+                }
+                writeXML(identifier, md);
+                break;
+            }
+            case JSON: {
+                if (batch) out.write(count == 0 ? "[\n" : ",\n");
+                writeJSON(identifier, md);
+                break;
+            }
+            case NDJSON: {
+                writeJSON(identifier, md);
+                out.write('\n');
+                break;
+            }
+        }
+        count++;
+    }
+
+    /**
+     * Returns the resolution along the given grid axis, or NaN if the CRS is unknown.
+     */
+    private static double resolution(final AffineTransform tr, final int dimension) {
+        return (dimension == 0) ? Math.hypot(tr.getScaleX(), tr.getShearY())
+                                : Math.hypot(tr.getShearX(), tr.getScaleY());
+    }
+
+    /**
+     * Returns the first geographic bounding box of the given metadata, or {@code null} if none.
+     */
+    private static GeographicBoundingBox bbox(final RasterMetadata md) {
+        for (final Extent extent : md.getExtents()) {
+            for (final GeographicExtent element : extent.getGeographicElements()) {
+                if (element instanceof GeographicBoundingBox) {
+                    return (GeographicBoundingBox) element;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the first identifier of the given CRS, or its name if the CRS has not been identified.
+     */
+    private static ReferenceIdentifier identifier(final CoordinateReferenceSystem crs) {
+        for (final ReferenceIdentifier id : crs.getIdentifiers()) {
+            return id;
+        }
+        return crs.getName();
+    }
+
+    /**
+     * Returns the code of the given cell geometry, or {@code null} if none.
+     */
+    private static String code(final CellGeometry cellGeometry) {
+        return (cellGeometry != null) ? cellGeometry.identifier() : null;
+    }
+
+    /**
+     * Writes an ISO 19139 {@code gmd:MD_Metadata} element.
+     */
+    private void writeXML(final String identifier, final RasterMetadata md) throws IOException {
+        out.write(batch ? "<gmd:MD_Metadata>\n" : "<gmd:MD_Metadata" + NAMESPACES + ">\n");
+        if (identifier != null) {
+            out.write("  <gmd:fileIdentifier>");
+            characterString(identifier);
+            out.write("</gmd:fileIdentifier>\n");
+        }
+        out.write("  <gmd:hierarchyLevel>");
+        codeListValue("MD_ScopeCode", "dataset");
+        out.write("</gmd:hierarchyLevel>\n"
+                + "  <gmd:contact gco:nilReason=\"unknown\"/>\n"
+                + "  <gmd:dateStamp gco:nilReason=\"unknown\"/>\n");
+        /*
+         * Grid size, resolution and cell geometry.
+         */
+        final CoordinateReferenceSystem crs = md.getCoordinateReferenceSystem();
+        final AffineTransform gridToCRS = (crs != null) ? md.getGridToCRS() : null;
+        final CoordinateSystem cs = (crs != null) ? crs.getCoordinateSystem() : null;
+        out.write("  <gmd:spatialRepresentationInfo>\n"
+                + "    <gmd:MD_GridSpatialRepresentation>\n"
+                + "      <gmd:numberOfDimensions><gco:Integer>2</gco:Integer></gmd:numberOfDimensions>\n");
+        for (int i=0; i<2; i++) {
+            out.write("      <gmd:axisDimensionProperties><gmd:MD_Dimension><gmd:dimensionName>");
+            codeListValue("MD_DimensionNameTypeCode", (i == 0) ? "column" : "row");
+            out.write("</gmd:dimensionName><gmd:dimensionSize><gco:Integer>");
+            out.write(Integer.toString((i == 0) ? md.getWidth() : md.getHeight()));
+            out.write("</gco:Integer></gmd:dimensionSize>");
+            final Unit<?> unit = (cs != null && i < cs.getDimension()) ? cs.getAxis(i).getUnit() : null;
+            if (unit != null) {
+                out.write("<gmd:resolution><gco:Measure uom=\"");
+                escapeXML(unit.toString());
+                out.write("\">");
+                out.write(Double.toString(resolution(gridToCRS, i)));
+                out.write("</gco:Measure></gmd:resolution>");
+            }
+            out.write("</gmd:MD_Dimension></gmd:axisDimensionProperties>\n");
+        }
+        final String cellGeometry = code(md.getCellGeometry());
+        out.write("      <gmd:cellGeometry");
+        if (cellGeometry != null) {
+            out.write('>');
+            codeListValue("MD_CellGeometryCode", cellGeometry);
+            out.write("</gmd:cellGeometry>\n");
+        } else {
+            out.write(" gco:nilReason=\"unknown\"/>\n");
+        }
+        out.write("      <gmd:transformationParameterAvailability><gco:Boolean>");
+        out.write(Boolean.toString(crs != null));
+        out.write("</gco:Boolean></gmd:transformationParameterAvailability>\n"
+                + "    </gmd:MD_GridSpatialRepresentation>\n"
+                + "  </gmd:spatialRepresentationInfo>\n");
+        /*
+         * Coordinate reference system, identified by its EPSG code if known or by its name otherwise.
+         */
+        if (crs != null) {
+            final ReferenceIdentifier id = identifier(crs);
+            out.write("  <gmd:referenceSystemInfo><gmd:MD_ReferenceSystem><gmd:referenceSystemIdentifier>"
+                    + "<gmd:RS_Identifier><gmd:code>");
+            characterString(id.getCode());
+            out.write("</gmd:code>");
+            if (id.getCodeSpace() != null) {
+                out.write("<gmd:codeSpace>");
+                characterString(id.getCodeSpace());
+                out.write("</gmd:codeSpace>");
+            }
+            out.write("</gmd:RS_Identifier></gmd:referenceSystemIdentifier>"
+                    + "</gmd:MD_ReferenceSystem></gmd:referenceSystemInfo>\n");
+        }
+        /*
+         * Title and geographic extent.
+         */
+        out.write("  <gmd:identificationInfo>\n"
+                + "    <gmd:MD_DataIdentification>\n"
+                + "      <gmd:citation><gmd:CI_Citation><gmd:title");
+        final String title = md.description();
+        if (title != null) {
+            out.write('>');
+            characterString(title);
+            out.write("</gmd:title>");
+        } else {
+            out.write(" gco:nilReason=\"missing\"/>");
+        }
+        out.write("<gmd:date gco:nilReason=\"unknown\"/></gmd:CI_Citation></gmd:citation>\n"
+                + "      <gmd:abstract gco:nilReason=\"unknown\"/>\n"
+                + "      <gmd:language gco:nilReason=\"unknown\"/>\n");
+        final GeographicBoundingBox bbox = bbox(md);
+        if (bbox != null) {
+            out.write("      <gmd:extent><gmd:EX_Extent><gmd:geographicElement><gmd:EX_GeographicBoundingBox>\n");
+            decimal("westBoundLongitude", bbox.getWestBoundLongitude());
+            decimal("eastBoundLongitude", bbox.getEastBoundLongitude());
+            decimal("southBoundLatitude", bbox.getSouthBoundLatitude());
+            decimal("northBoundLatitude", bbox.getNorthBoundLatitude());
+            out.write("      </gmd:EX_GeographicBoundingBox></gmd:geographicElement></gmd:EX_Extent></gmd:extent>\n");
+        }
+        out.write("    </gmd:MD_DataIdentification>\n"
+                + "  </gmd:identificationInfo>\n");
+        /*
+         * Band statistics, if they have been computed.
+         */
+        out.write("  <gmd:contentInfo>\n"
+                + "    <gmd:MD_CoverageDescription>\n"
+                + "      <gmd:attributeDescription gco:nilReason=\"unknown\"/>\n"
+                + "      <gmd:contentType gco:nilReason=\"unknown\"/>\n");
+        for (final RangeDimension dimension : md.getDimensions()) {
+            final BandStatistics band = (BandStatistics) dimension;
+            out.write("      <gmd:dimension><gmd:MD_Band>");
+            real("maxValue", band.getMaxValue());
+            real("minValue", band.getMinValue());
+            final Integer bits = band.getBitsPerValue();
+            if (bits != null) {
+                out.write("<gmd:bitsPerValue><gco:Integer>");
+                out.write(bits.toString());
+                out.write("</gco:Integer></gmd:bitsPerValue>");
+            }
+            out.write("</gmd:MD_Band></gmd:dimension>\n");
+        }
+        out.write("    </gmd:MD_CoverageDescription>\n"
+                + "  </gmd:contentInfo>\n"
+                + "</gmd:MD_Metadata>\n");
+    }
+
+    /**
+     * Writes a {@code gco:CharacterString} element with the given text.
+     */
+    private void characterString(final String text) throws IOException {
+        out.write("<gco:CharacterString>");
+        escapeXML(text);
+        out.write("</gco:CharacterString>");
+    }
+
+    /**
+     * Writes a code list element with the given value.
+     */
+    private void codeListValue(final String codeList, final String value) throws IOException {
+        out.write("<gmd:");
+        out.write(codeList);
+        out.write(" codeList=\"" + CODE_LISTS);
+        out.write(codeList);
+        out.write("\" codeListValue=\"");
+        out.write(value);
+        out.write("\">");
+        out.write(value);
+        out.write("</gmd:");
+        out.write(codeList);
+        out.write('>');
+    }
+
+    /**
+     * Writes a bounding box element as a {@code gco:Decimal}.
+     */
+    private void decimal(final String element, final double value) throws IOException {
+        out.write("        <gmd:");
+        out.write(element);
+        out.write("><gco:Decimal>");
+        out.write(Double.toString(value));
+        out.write("</gco:Decimal></gmd:");
+        out.write(element);
+        out.write(">\n");
+    }
+
+    /**
+     * Writes a band element as a {@code gco:Real}, or nothing if the value is null.
+     */
+    private void real(final String element, final Double value) throws IOException {
+        if (value != null) {
+            out.write("<gmd:");
+            out.write(element);
+            out.write("><gco:Real>");
+            out.write(value.toString());
+            out.write("</gco:Real></gmd:");
+            out.write(element);
+            out.write('>');
+        }
+    }
+
+    /**
+     * Writes the given text with the XML special characters escaped. Control characters other than
+     * tabulation and line separators can not be represented in XML 1.0, even escaped, so they are
+     * replaced by the U+FFFD replacement character.
+     */
+    private void escapeXML(final String text) throws IOException {
+        int start = 0;
+        final int length = text.length();
+        for (int i=0; i<length; i++) {
+            final char c = text.charAt(i);
+            final String replacement;
+            switch (c) {
+                case '&':  replacement = "&amp;";  break;
+                case '<':  replacement = "&lt;";   break;
+                case '>':  replacement = "&gt;";   break;
+                case '"':  replacement = "&quot;"; break;
+                case '\t': case '\n': case '\r': continue;
+                default: {
+                    if (c >= 0x20) continue;
+                    replacement = "\uFFFD";
+                    break;
+                }
+            }
+            out.write(text, start, i - start);
+            out.write(replacement);
+            start = i + 1;
+        }
+        out.write(text, start, length - start);
+    }
+
+    /**
+     * Writes a JSON object for the given metadata, on a single line.
+     */
+    private void writeJSON(final String identifier, final RasterMetadata md) throws IOException {
+        out.write('{');
+        first = true;
+        string("fileIdentifier", identifier);
+        string("hierarchyLevel", "dataset");
+        /*
+         * Grid size, resolution and cell geometry.
+         */
+        final CoordinateReferenceSystem crs = md.getCoordinateReferenceSystem();
+        final AffineTransform gridToCRS = (crs != null) ? md.getGridToCRS() : null;
+        key("spatialRepresentationInfo");
+        out.write("{\"numberOfDimensions\":2,\"axisDimensionProperties\":[");
+        for (int i=0; i<2; i++) {
+            if (i != 0) out.write(',');
+            out.write((i == 0) ? "{\"dimensionName\":\"column\",\"dimensionSize\":"
+                               : "{\"dimensionName\":\"row\",\"dimensionSize\":");
+            out.write(Integer.toString((i == 0) ? md.getWidth() : md.getHeight()));
+            if (gridToCRS != null) {
+                out.write(",\"resolution\":");
+                number(resolution(gridToCRS, i));
+            }
+            out.write('}');
+        }
+        out.write(']');
+        first = false;
+        string("cellGeometry", code(md.getCellGeometry()));
+        out.write(",\"transformationParameterAvailability\":");
+        out.write(Boolean.toString(crs != null));
+        out.write('}');
+        first = false;
+        /*
+         * Coordinate reference system with its axes.
+         */
+        if (crs != null) {
+            key("referenceSystemInfo");
+            out.write('{');
+            first = true;
+            string("name", crs.getName().getCode());
+            final ReferenceIdentifier id = identifier(crs);
+            if (id != crs.getName()) {
+                string("identifier", id.toString());
+            }
+            key("axes");
+            out.write('[');
+            final CoordinateSystem cs = crs.getCoordinateSystem();
+            for (int i=0; i<cs.getDimension(); i++) {
+                final CoordinateSystemAxis axis = cs.getAxis(i);
+                if (i != 0) out.write(',');
+                out.write('{');
+                first = true;
+                string("name", axis.getName().getCode());
+                string("direction", axis.getDirection().name());
+                final Unit<?> unit = axis.getUnit();
+                string("unit", (unit != null) ? unit.toString() : null);
+                out.write('}');
+            }
+            out.write("]}");
+            first = false;
+        }
+        /*
+         * Title and geographic extent.
+         */
+        key("identificationInfo");
+        out.write('{');
+        first = true;
+        key("citation");
+        out.write('{');
+        first = true;
+        string("title", md.description());
+        out.write('}');
+        first = false;
+        final GeographicBoundingBox bbox = bbox(md);
+        if (bbox != null) {
+            key("extent");
+            out.write("{\"westBoundLongitude\":");  number(bbox.getWestBoundLongitude());
+            out.write(",\"eastBoundLongitude\":");  number(bbox.getEastBoundLongitude());
+            out.write(",\"southBoundLatitude\":");  number(bbox.getSouthBoundLatitude());
+            out.write(",\"northBoundLatitude\":");  number(bbox.getNorthBoundLatitude());
+            out.write('}');
+        }
+        out.write('}');
+        first = false;
+        /*
+         * Band statistics, if they have been computed.
+         */
+        boolean hasBands = false;
+        for (final RangeDimension dimension : md.getDimensions()) {
+            final BandStatistics band = (BandStatistics) dimension;
+            if (hasBands) {
+                out.write(',');
+            } else {
+                key("contentInfo");
+                out.write("{\"dimension\":[");
+                hasBands = true;
+            }
+            out.write('{');
+            first = true;
+            if (band.getMinValue() != null) {
+                key("minValue"); number(band.getMinValue());
+                key("maxValue"); number(band.getMaxValue());
+                key("meanValue"); number(band.getMean());
+                key("standardDeviation"); number(band.getStandardDeviation());
+            }
+            key("count");       out.write(Long.toString(band.getCount()));
+            key("noDataCount"); out.write(Long.toString(band.getNoDataCount()));
+            out.write('}');
+        }
+        if (hasBands) {
+            out.write("]}");
+        }
+        out.write('}');
+    }
+
+    /**
+     * Writes a JSON property name, preceded by a comma if it is not the first property of the object.
+     */
+    private void key(final String name) throws IOException {
+        if (!first) out.write(',');
+        first = false;
+        out.write('"');
+        out.write(name);
+        out.write("\":");
+    }
+
+    /**
+     * Writes a JSON string property, or nothing if the value is null.
+     */
+    private void string(final String name, final String value) throws IOException {
+        if (value != null) {
+            key(name);
+            out.write('"');
+            final int length = value.length();
+            int start = 0;
+            for (int i=0; i<length; i++) {
+                final char c = value.charAt(i);
+                if (c == '"' || c == '\\' || c < 0x20) {
+                    out.write(value, start, i - start);
+                    switch (c) {
+                        case '"':  out.write("\\\""); break;
+                        case '\\': out.write("\\\\"); break;
+                        case '\n': out.write("\\n");  break;
+                        case '\r': out.write("\\r");  break;
+                        case '\t': out.write("\\t");  break;
+                        default:   out.write(String.format("\\u%04x", (int) c));
+                    }
+                    start = i + 1;
+                }
+            }
+            out.write(value, start, length - start);
+            out.write('"');
+        }
+    }
+
+    /**
+     * Writes a JSON number, or {@code null} if the value is NaN or infinite.
+     */
+    private void number(final double value) throws IOException {
+        out.write(Double.isFinite(value) ? Double.toString(value) : "null");
+    }
+
+    /**
+     * Writes pending records to the output stream.
+     *
+     * @throws IOException if an error occurred while writing.
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Completes the document and closes the output stream. If no record has been written in non-batch mode,
+     * the document contains an empty metadata element or object. Invoking this method many times has no effect.
+     *
+     * @throws IOException if an error occurred while writing.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            switch (format) {
+                case XML: {
+                    if (count == 0) {
+                        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+                        out.write(batch ? "<metadataCollection" + NAMESPACES + ">\n" : "<gmd:MD_Metadata" + NAMESPACES + "/>\n");
+                    }
+                    if (batch) {
+                        out.write("</metadataCollection>\n");
+                    }
+                    break;
+                }
+                case JSON: {
+                    if (batch) {
+                        out.write(count == 0 ? "[]\n" : "\n]\n");
+                    } else {
+                        out.write(count == 0 ? "{}\n" : "\n");
+                    }
+                    break;
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+
+/**
+ * Receives measurements about the operations done by this library. The default implementation does nothing.
+ * An implementation can be installed with {@link DataSet#setMetrics(Metrics)}; {@link JMXMetrics} is one of them.
+ * Methods of this interface are invoked on the hot paths from any thread, so implementations shall be
+ * thread-safe and fast.
+ *
+ * <p>The time spent waiting for the lock of a native handle is reported separately
+ * ({@link Operation#LOCK_WAIT}) from the time spent in GDAL, so contention can be
+ * distinguished from decoding and I/O.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public interface Metrics {
+    /**
+     * The operations measured by this library.
+     */
+    enum Operation {
+        /** Opening a native dataset handle with {@code gdal.Open(…)}. */
+        OPEN,
+
+        /** Closing a dataset and its native handles. */
+        CLOSE,
+
+        /** Extracting the metadata of a dataset. */
+        METADATA,
+
+        /** Parsing a Well Known Text not found in the CRS cache. */
+        CRS_PARSE,
+
+        /** Identifying the EPSG code of a CRS not found in the identification cache. */
+        CRS_IDENTIFY,
+
+        /** Reading pixel values in a region, as a single GDAL call or a call per band. */
+        READ,
+
+        /** Reading a block not found in the block cache. */
+        READ_BLOCK,
+
+        /** Waiting for the lock of a native handle before a read. */
+        LOCK_WAIT
+    }
+
+    /**
+     * The caches for which hits and misses are counted.
+     */
+    enum Cache {
+        /** The cache of coordinate reference systems keyed by WKT. */
+        CRS,
+
+        /** The cache of EPSG codes keyed by normalized WKT. */
+        IDENTIFICATION,
+
+        /** The cache of raster blocks. */
+        BLOCK
+    }
+
+    /**
+     * An implementation which ignores all measurements.
+     */
+    Metrics NONE = new Metrics() {};
+
+    /**
+     * Invoked after an operation completed successfully.
+     *
+     * @param  operation  the operation which has been executed.
+     * @param  nanos      duration of the operation in nanoseconds.
+     * @param  bytes      number of bytes read by the operation, or 0 if not applicable.
+     */
+    default void record(Operation operation, long nanos, long bytes) {
+    }
+
+    /**
+     * Invoked after a lookup in a cache.
+     *
+     * @param  cache  the cache in which the lookup has been done.
+     * @param  hit    whether the value was found in the cache.
+     */
+    default void cacheAccess(Cache cache, boolean hit) {
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.util.Map;
+
+
+/**
+ * Management interface of {@link JMXMetrics}. All maps are keyed by
+ * {@link Metrics.Operation} or {@link Metrics.Cache} names.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public interface MetricsMXBean {
+    /**
+     * Returns the number of executions of each operation.
+     *
+     * @return number of executions per operation.
+     */
+    Map<String,Long> getCounts();
+
+    /**
+     * Returns the mean duration of each operation in microseconds.
+     *
+     * @return mean latency per operation.
+     */
+    Map<String,Double> getMeanLatencies();
+
+    /**
+     * Returns latency histograms with buckets of exponentially increasing width.
+     * The value at index <var>i</var> is the number of executions which took
+     * from 2<sup><var>i</var></sup> (inclusive) to 2<sup><var>i</var>+1</sup> (exclusive) nanoseconds.
+     *
+     * @return latency histogram per operation.
+     */
+    Map<String,long[]> getLatencyHistograms();
+
+    /**
+     * Returns the number of bytes read by each operation.
+     *
+     * @return bytes read per operation.
+     */
+    Map<String,Long> getBytesRead();
+
+    /**
+     * Returns the ratio of cache hits over all lookups, for each cache.
+     *
+     * @return hit ratio per cache, or NaN if the cache has not been used.
+     */
+    Map<String,Double> getCacheHitRatios();
+
+    /**
+     * Resets all measurements to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,368 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.gdal.gdal.gdal;
+import org.gdal.gdalconst.gdalconst;
+import org.opengis.metadata.Metadata;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform2D;
+
+
+/**
+ * Many raster files presented as a single raster, in the way of a GDAL virtual raster (VRT).
+ * All files shall use the same CRS, the same number of bands and the same pixel size, and their
+ * grids shall be aligned on the same pixel boundaries. The mosaic grid is the union of all grids.
+ *
+ * <p>A read of a region of the mosaic opens only the files which intersect that region, using a
+ * {@link Catalog} for finding them, and reads those files in parallel. Each file writes its values
+ * directly at their final location in the buffer, so no intermediate image is created.
+ * Files are opened through a {@link DataSetPool}, which bounds the number of native handles
+ * and keeps the most recently used files opened between reads.</p>
+ *
+ * <p>Instances of this class are immutable and can be used concurrently by many threads.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final class Mosaic {
+    /**
+     * Tolerance for deciding whether two grids use the same pixel size, relative to the pixel size.
+     */
+    private static final double SCALE_TOLERANCE = 1E-9;
+
+    /**
+     * Tolerance in pixels for deciding whether two grids are aligned on the same pixel boundaries.
+     */
+    private static final double ALIGNMENT_TOLERANCE = 1E-3;
+
+    /**
+     * The pool from which to open the source files.
+     */
+    private final DataSetPool pool;
+
+    /**
+     * The region of each source file in pixel coordinates of the mosaic.
+     */
+    private final Map<Path,Rectangle> regions;
+
+    /**
+     * Priority of each source file where sources overlap. This is the position of the file in the
+     * collection given at construction time, with the last file on top of the other ones.
+     */
+    private final Map<Path,Integer> priorities;
+
+    /**
+     * Index of source footprints in pixel coordinates of the mosaic.
+     */
+    private final Catalog index;
+
+    /**
+     * Size, georeferencing and CRS of the mosaic.
+     */
+    private final RasterMetadata metadata;
+
+    /**
+     * Creates a mosaic of the given files. The metadata of each file are read by opening the files
+     * with the given pool. For mosaics of many thousands of files, it is more efficient to get the
+     * metadata from a {@link MetadataIndex} and to use {@link #Mosaic(Map, DataSetPool)} instead.
+     *
+     * @param  files  the source files.
+     * @param  pool   the pool from which to open the source files.
+     * @throws IOException if a file can not be opened.
+     * @throws IllegalArgumentException if the files do not share the same CRS, bands or aligned grid.
+     */
+    public Mosaic(final Collection<Path> files, final DataSetPool pool) throws IOException {
+        this(metadata(files, pool), pool);
+    }
+
+    /**
+     * Reads the metadata of all given files.
+     */
+    private static Map<Path,Metadata> metadata(final Collection<Path> files, final DataSetPool pool) throws IOException {
+        final Map<Path,Metadata> sources = new LinkedHashMap<>();
+        for (final Path file : files) {
+            try (DataSet ds = pool.open(file)) {
+                sources.put(file, ds.getMetadata());
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * Creates a mosaic of the given files with metadata already known. Metadata shall have been created by
+     * {@link DataSet#getMetadata()} or {@link MetadataIndex#getMetadata(Path)}, and shall not be lazy
+     * unless their dataset is still opened.
+     *
+     * @param  sources  the source files together with their metadata.
+     * @param  pool     the pool from which to open the source files.
+     * @throws IllegalArgumentException if there is no source, or the sources do not share
+     *         the same CRS, bands or aligned grid.
+     */
+    public Mosaic(final Map<Path,? extends Metadata> sources, final DataSetPool pool) {
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("A mosaic needs at least one source.");
+        }
+        this.pool = pool;
+        regions = new LinkedHashMap<>();
+        AffineTransform reference = null;
+        CoordinateReferenceSystem crs = null;
+        int numBands = 0;
+        int xmin = Integer.MAX_VALUE, ymin = Integer.MAX_VALUE;
+        int xmax = Integer.MIN_VALUE, ymax = Integer.MIN_VALUE;
+        for (final Map.Entry<Path,? extends Metadata> entry : sources.entrySet()) {
+            final Path file = entry.getKey();
+            if (!(entry.getValue() instanceof GridGeometry)) {
+                throw new IllegalArgumentException("Unsupported metadata implementation for " + file + '.');
+            }
+            final GridGeometry grid = (GridGeometry) entry.getValue();
+            final AffineTransform tr = grid.getGridToCRS();
+            final CoordinateReferenceSystem c = grid.getCoordinateReferenceSystem();
+            if (tr.getShearX() != 0 || tr.getShearY() != 0) {
+                throw new IllegalArgumentException("The grid of " + file + " is rotated.");
+            }
+            if (reference == null) {
+                reference = tr;
+                crs       = c;
+                numBands  = grid.getNumBands();
+            } else {
+                if (!CRS.equivalent(c, crs)) {
+                    throw new IllegalArgumentException("The CRS of " + file + " differs from the CRS of other sources.");
+                }
+                if (grid.getNumBands() != numBands) {
+                    throw new IllegalArgumentException("The number of bands of " + file + " differs from other sources.");
+                }
+                if (Math.abs(tr.getScaleX() / reference.getScaleX() - 1) > SCALE_TOLERANCE ||
+                    Math.abs(tr.getScaleY() / reference.getScaleY() - 1) > SCALE_TOLERANCE)
+                {
+                    throw new IllegalArgumentException("The pixel size of " + file + " differs from other sources.");
+                }
+            }
+            final double dx = (tr.getTranslateX() - reference.getTranslateX()) / reference.getScaleX();
+            final double dy = (tr.getTranslateY() - reference.getTranslateY()) / reference.getScaleY();
+            final long   px = Math.round(dx);
+            final long   py = Math.round(dy);
+            if (Math.abs(dx - px) > ALIGNMENT_TOLERANCE || Math.abs(dy - py) > ALIGNMENT_TOLERANCE) {
+                throw new IllegalArgumentException("The grid of " + file + " is not aligned with other sources.");
+            }
+            final Rectangle region = new Rectangle(Math.toIntExact(px), Math.toIntExact(py), grid.getWidth(), grid.getHeight());
+            regions.put(file, region);
+            xmin = Math.min(xmin, region.x);
+            ymin = Math.min(ymin, region.y);
+            xmax = Math.max(xmax, region.x + region.width);
+            ymax = Math.max(ymax, region.y + region.height);
+        }
+        /*
+         * Translate all regions so that the upper-left corner of the mosaic is at (0,0),
+         * then index them for finding quickly the sources intersecting a region to read.
+         */
+        index = new Catalog(null);
+        priorities = new HashMap<>();
+        for (final Map.Entry<Path,Rectangle> entry : regions.entrySet()) {
+            final Rectangle region = entry.getValue();
+            region.translate(-xmin, -ymin);
+            index.add(entry.getKey(), region);
+            priorities.put(entry.getKey(), priorities.size());
+        }
+        final AffineTransform gridToCRS = new AffineTransform(reference);
+        gridToCRS.translate(xmin, ymin);
+        metadata = new RasterMetadata(Math.toIntExact((long) xmax - xmin), Math.toIntExact((long) ymax - ymin),
+                                      numBands, gridToCRS, crs, null, null);
+    }
+
+    /**
+     * Returns information about the mosaic as ISO 19115 metadata.
+     * The grid size and georeferencing are those of the union of all sources.
+     *
+     * @return information about the mosaic.
+     */
+    public Metadata getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Returns the conversion from pixel coordinates of the mosaic to "real world" coordinates.
+     *
+     * @return the "grid to CRS" transform, mapping pixel corners.
+     */
+    public MathTransform2D getGridToCRS() {
+        return metadata.getGridToCRSTransform();
+    }
+
+    /**
+     * Returns the source files which intersect the given region.
+     *
+     * @param  region  the region in pixel coordinates of the mosaic.
+     * @return the files having at least one pixel in the given region.
+     */
+    public List<Path> getSources(final Rectangle region) {
+        final List<Path> files = index.search(region);
+        files.removeIf((file) -> !regions.get(file).intersects(region));
+        return files;
+    }
+
+    /**
+     * Reads sample values in the given region of the mosaic directly into a native buffer. The layout of
+     * values in the buffer is the same as {@link DataSet#read(Rectangle, int[], int, ByteBuffer)}: band after
+     * band, then row after row, in the native byte order. Sources intersecting the region are read in parallel
+     * in the common fork-join pool. Pixels not covered by any source are set to zero. Where sources overlap,
+     * the value is taken from the source which is last in the collection given at construction time.
+     *
+     * @param  region    the region to read, in pixel coordinates of the mosaic.
+     * @param  bands     the bands to read, numbered from 1, or {@code null} for all bands.
+     * @param  dataType  the GDAL type of values to store in the buffer, as a {@link gdalconst} {@code GDT_*} constant.
+     * @param  target    a direct buffer where to store the values, or {@code null} for allocating a new buffer.
+     * @return the buffer with its limit set to the number of bytes read. This is {@code target} if it was non-null.
+     * @throws IllegalArgumentException if the region is outside the mosaic, the data type is unknown
+     *         or the given buffer is not direct or not large enough.
+     * @throws IOException if a source can not be opened or read.
+     */
+    public ByteBuffer read(final Rectangle region, int[] bands, final int dataType, ByteBuffer target) throws IOException {
+        if (region.isEmpty() || region.x < 0 || region.y < 0
+                || region.x + region.width  > metadata.getWidth()
+                || region.y + region.height > metadata.getHeight())
+        {
+            throw new IllegalArgumentException("Region " + region + " is outside the mosaic.");
+        }
+        if (bands == null) {
+            bands = new int[metadata.getNumBands()];
+            for (int i=0; i<bands.length; i++) {
+                bands[i] = i + 1;
+            }
+        }
+        final int sampleSize = gdal.GetDataTypeSize(dataType) / Byte.SIZE;
+        if (sampleSize == 0) {
+            throw new IllegalArgumentException("Unknown data type: " + dataType);
+        }
+        final long bandLength = (long) region.width * region.height * sampleSize;
+        final long length = bandLength * bands.length;
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Region " + region + " is too large.");
+        }
+        if (target == null) {
+            target = NativeResources.allocate((int) length);
+        } else if (!target.isDirect() || target.capacity() < length) {
+            throw new IllegalArgumentException("Target buffer must be direct with a capacity of at least " + length + " bytes.");
+        }
+        target.order(ByteOrder.nativeOrder()).clear().limit((int) length);
+        /*
+         * Find the parts of each source to read. Parts do not overlap, so each pixel is written by exactly one
+         * task. If the parts do not cover the whole region, clear the buffer before to read them.
+         */
+        final List<Path> files = new ArrayList<>();
+        final List<Rectangle> windows = new ArrayList<>();
+        long covered = 0;
+        for (final Map.Entry<Path,List<Rectangle>> entry : windows(region).entrySet()) {
+            for (final Rectangle window : entry.getValue()) {
+                covered += (long) window.width * window.height;
+                files.add(entry.getKey());
+                windows.add(window);
+            }
+        }
+        if (covered != (long) region.width * region.height) {
+            final ByteBuffer zeros = target.duplicate();
+            while (zeros.remaining() >= Long.BYTES) zeros.putLong(0);
+            while (zeros.hasRemaining()) zeros.put((byte) 0);
+        }
+        /*
+         * Read each part directly at its location in the target buffer.
+         */
+        final int lineSpace = region.width * sampleSize;
+        final int[] bandList = bands;
+        final ByteBuffer buffer = target;
+        try {
+            IntStream.range(0, files.size()).parallel().forEach((i) -> {
+                final Path file = files.get(i);
+                final Rectangle window = new Rectangle(windows.get(i));
+                final Rectangle source = regions.get(file);
+                final ByteBuffer slice = buffer.duplicate();
+                slice.clear().position(((window.y - region.y) * region.width + (window.x - region.x)) * sampleSize);
+                window.translate(-source.x, -source.y);
+                try (DataSet ds = pool.open(file)) {
+                    ds.readWindow(window, bandList, dataType, slice.slice(), lineSpace, (int) bandLength);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return target;
+    }
+
+    /**
+     * Returns the parts of each source to read for filling the given region. The parts are in pixel coordinates
+     * of the mosaic and do not overlap: where sources overlap, the part is given to the source of highest priority.
+     * A source may have many parts if its window is partially hidden by other sources.
+     *
+     * @param  region  the region to read, in pixel coordinates of the mosaic.
+     * @return the parts to read in each source, in increasing priority order. Sources fully hidden are omitted.
+     */
+    final Map<Path,List<Rectangle>> windows(final Rectangle region) {
+        final List<Path> files = getSources(region);
+        files.sort(Comparator.comparing(priorities::get));
+        final Map<Path,List<Rectangle>> windows = new LinkedHashMap<>();
+        for (int i=0; i<files.size(); i++) {
+            final List<Rectangle> parts = new ArrayList<>();
+            parts.add(regions.get(files.get(i)).intersection(region));
+            for (int j=i+1; j<files.size() && !parts.isEmpty(); j++) {
+                subtract(parts, regions.get(files.get(j)));
+            }
+            if (!parts.isEmpty()) {
+                windows.put(files.get(i), parts);
+            }
+        }
+        return windows;
+    }
+
+    /**
+     * Removes the given hole from all rectangles in the given list. Each rectangle intersecting
+     * the hole is replaced by up to four rectangles: above, below, on the left and on the right.
+     *
+     * @param  parts  the rectangles from which to remove the hole. Modified in place.
+     * @param  hole   the area to remove.
+     */
+    private static void subtract(final List<Rectangle> parts, final Rectangle hole) {
+        for (int i = parts.size(); --i >= 0;) {
+            final Rectangle r = parts.get(i);
+            final Rectangle h = r.intersection(hole);
+            if (h.isEmpty()) {
+                continue;
+            }
+            parts.remove(i);
+            final int rxmax = r.x + r.width,  hxmax = h.x + h.width;
+            final int rymax = r.y + r.height, hymax = h.y + h.height;
+            if (h.y > r.y)     parts.add(new Rectangle(r.x,   r.y,   r.width,       h.y - r.y));
+            if (hymax < rymax) parts.add(new Rectangle(r.x,   hymax, r.width,       rymax - hymax));
+            if (h.x > r.x)     parts.add(new Rectangle(r.x,   h.y,   h.x - r.x,     h.height));
+            if (hxmax < rxmax) parts.add(new Rectangle(hxmax, h.y,   rxmax - hxmax, h.height));
+        }
+    }
+}
@@ -0,0 +1,397 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.gdal.gdal.gdal;
+
+
+/**
+ * Accounting and limits of the native memory used through this library. Native memory is invisible to the
+ * JVM heap limits, so a container can be killed for exceeding its memory before the JVM notices anything.
+ * This class controls three kinds of native memory:
+ *
+ * <ul>
+ *   <li><b>GDAL block cache:</b> the cache of decoded blocks managed by GDAL itself, which can be
+ *       bounded by {@link #setGDALCacheMax(long)}.</li>
+ *   <li><b>Buffers:</b> the direct buffers allocated by this library for reading values. Their total size is
+ *       given by {@link #getAllocated()}. If a {@linkplain #setBudget(long) budget} is set, an allocation which
+ *       would exceed the budget first disposes idle datasets of all {@link DataSetPool}s and discards the least
+ *       recently used blocks of the {@link BlockCache} until enough memory is released. If the budget is still
+ *       exceeded, the allocation fails immediately with a {@link GDALException}. Callers may retry later, since
+ *       the memory of unreachable buffers is released when the garbage collector reclaims them.</li>
+ *   <li><b>Native handles:</b> the GDAL datasets opened by {@link DataSet}, counted by {@link #getOpenHandleCount()}.
+ *       Datasets which become unreachable without having been closed are disposed by a background thread,
+ *       and a warning is logged since this is a bug in the application.</li>
+ * </ul>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final class NativeResources {
+    /**
+     * The logger for warnings about datasets which have not been closed.
+     */
+    private static final Logger LOGGER = Logger.getLogger("com.geomatys.geoapi.gdal");
+
+    /**
+     * Maximal number of bytes of buffers allocated through this library.
+     */
+    private static volatile long budget = Long.MAX_VALUE;
+
+    /**
+     * Number of bytes of buffers allocated through this library and not yet garbage-collected.
+     */
+    private static final AtomicLong ALLOCATED = new AtomicLong();
+
+    /**
+     * Number of native GDAL dataset handles currently opened.
+     */
+    private static final AtomicInteger OPEN_HANDLES = new AtomicInteger();
+
+    /**
+     * The pools to ask for disposal of idle datasets when the budget is exceeded.
+     */
+    private static final Set<DataSetPool> POOLS = Collections.newSetFromMap(new WeakHashMap<>());
+
+    /**
+     * Queue of buffers and datasets which have been garbage-collected.
+     */
+    private static final ReferenceQueue<Object> QUEUE = new ReferenceQueue<>();
+
+    /**
+     * References to all tracked objects. Phantom references need to be reachable for being enqueued.
+     */
+    private static final Set<Tracker> TRACKERS = ConcurrentHashMap.newKeySet();
+
+    static {
+        // The thread releasing the resources of garbage-collected objects.
+        final Thread thread = new Thread(NativeResources::reclaim, "GDAL resource cleaner");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * A phantom reference to a buffer or a dataset, together with the action to execute after
+     * the referenced object has been garbage-collected.
+     */
+    private static final class Tracker extends PhantomReference<Object> {
+        /** Number of bytes to release from the {@link #ALLOCATED} count. */
+        final long size;
+
+        /** Action disposing the resources of a leaked object, or {@code null} if none. */
+        final Runnable cleanup;
+
+        /** Name of the leaked object for logging purpose, or {@code null} if none. */
+        final String name;
+
+        /** Creates a new reference to the given buffer or dataset. */
+        Tracker(final Object referent, final long size, final Runnable cleanup, final String name) {
+            super(referent, QUEUE);
+            this.size    = size;
+            this.cleanup = cleanup;
+            this.name    = name;
+            TRACKERS.add(this);
+        }
+    }
+
+    /**
+     * Do not allow instantiation of this class.
+     */
+    private NativeResources() {
+    }
+
+    /**
+     * Sets the maximal size of the GDAL block cache. This cache is shared by all datasets.
+     * The GDAL 3.0 Java binding is limited to 2 gigabytes; larger values are clamped.
+     *
+     * @param  bytes  the maximal cache size in bytes.
+     */
+    public static void setGDALCacheMax(final long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Cache size can not be negative.");
+        }
+        gdal.SetCacheMax((int) Math.min(bytes, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Returns the maximal size of the GDAL block cache.
+     *
+     * @return the maximal cache size in bytes.
+     */
+    public static long getGDALCacheMax() {
+        return gdal.GetCacheMax();
+    }
+
+    /**
+     * Returns the number of bytes currently used by the GDAL block cache.
+     *
+     * @return the cache size in bytes.
+     */
+    public static long getGDALCacheUsed() {
+        return gdal.GetCacheUsed();
+    }
+
+    /**
+     * Sets the maximal number of bytes of buffers allocated by this library.
+     *
+     * @param  bytes  the budget in bytes, or {@link Long#MAX_VALUE} for no limit.
+     */
+    public static void setBudget(final long bytes) {
+        if (bytes <= 0) {
+            throw new IllegalArgumentException("Budget must be positive.");
+        }
+        budget = bytes;
+    }
+
+    /**
+     * Returns the maximal number of bytes of buffers allocated by this library.
+     *
+     * @return the budget in bytes, or {@link Long#MAX_VALUE} if there is no limit.
+     */
+    public static long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Returns the number of bytes of buffers allocated by this library and not yet garbage-collected.
+     *
+     * @return the allocated size in bytes.
+     */
+    public static long getAllocated() {
+        return ALLOCATED.get();
+    }
+
+    /**
+     * Returns the number of native GDAL dataset handles currently opened.
+     * In {@link DataSet.Option#CONCURRENT_READS} mode, a dataset may have many handles.
+     *
+     * @return number of opened native handles.
+     */
+    public static int getOpenHandleCount() {
+        return OPEN_HANDLES.get();
+    }
+
+    /**
+     * Allocates a direct buffer of the given capacity. The memory is counted until the buffer is garbage-collected.
+     * The returned buffer is in big-endian order, as for {@link ByteBuffer#allocateDirect(int)}.
+     *
+     * @param  capacity  the buffer capacity in bytes.
+     * @return the new buffer.
+     * @throws GDALException if the budget would be exceeded, as documented in {@link #reserve(int)}.
+     */
+    static ByteBuffer allocate(final int capacity) throws GDALException {
+        final ByteBuffer buffer = allocateReserved(capacity);
+        track(buffer, capacity);
+        return buffer;
+    }
+
+    /**
+     * Releases the given number of bytes from the allocated count when the given buffer is garbage-collected.
+     *
+     * @param  buffer  a buffer allocated by {@link #allocateReserved(int)}.
+     * @param  size    number of bytes to release.
+     * @return a handle which can be given to {@link #reclaim(Object)}.
+     */
+    static Object track(final ByteBuffer buffer, final long size) {
+        return new Tracker(buffer, size, null, null);
+    }
+
+    /**
+     * Allocates a direct buffer of the given capacity which will not be tracked for garbage collection.
+     * The caller is responsible for invoking {@link #release(long)} when the buffer is discarded.
+     * This is used for blocks owned by the {@link BlockCache}, which are released on eviction.
+     *
+     * @param  capacity  the buffer capacity in bytes.
+     * @return the new buffer.
+     * @throws GDALException if the budget would be exceeded, as documented in {@link #reserve(int)}.
+     */
+    static ByteBuffer allocateReserved(final int capacity) throws GDALException {
+        reserve(capacity);
+        try {
+            return ByteBuffer.allocateDirect(capacity);
+        } catch (OutOfMemoryError e) {
+            release(capacity);
+            throw e;
+        }
+    }
+
+    /**
+     * Adds the given number of bytes to the allocated count, releasing memory held by caches if needed.
+     * If the budget would be exceeded, this method disposes idle datasets of all pools and discards the least
+     * recently used blocks of the shared block cache. This method does not wait for garbage collection.
+     *
+     * @param  capacity  the number of bytes to reserve.
+     * @throws GDALException if the budget is still exceeded after caches have been relieved,
+     *         or if the requested capacity is larger than the whole budget.
+     */
+    private static void reserve(final int capacity) throws GDALException {
+        if (!tryReserve(capacity)) {
+            final long limit = budget;
+            if (capacity <= limit) {
+                relieve(ALLOCATED.get() + capacity - limit);
+                if (tryReserve(capacity)) {
+                    return;
+                }
+            }
+            throw new GDALException("Native memory budget of " + limit + " bytes exceeded: "
+                    + ALLOCATED.get() + " bytes allocated, " + capacity + " bytes requested.");
+        }
+    }
+
+    /**
+     * Adds the given number of bytes to the allocated count if it does not exceed the budget.
+     *
+     * @return whether the bytes have been reserved.
+     */
+    private static boolean tryReserve(final int capacity) {
+        long current;
+        do {
+            current = ALLOCATED.get();
+            if (current + capacity > budget) {
+                return false;
+            }
+        } while (!ALLOCATED.compareAndSet(current, current + capacity));
+        return true;
+    }
+
+    /**
+     * Removes the given number of bytes from the allocated count.
+     * This is for buffers allocated by {@link #allocateReserved(int)}.
+     *
+     * @param  bytes  the number of bytes to release.
+     */
+    static void release(final long bytes) {
+        ALLOCATED.addAndGet(-bytes);
+    }
+
+    /**
+     * Releases memory held by caches: idle datasets of all pools and the least recently used blocks.
+     *
+     * @param  needed  number of bytes to release from the shared block cache.
+     */
+    private static void relieve(final long needed) {
+        final List<DataSetPool> pools;
+        synchronized (POOLS) {
+            pools = new ArrayList<>(POOLS);
+        }
+        for (final DataSetPool pool : pools) {
+            pool.evictAllIdle();
+        }
+        BlockCache.getDefault().release(needed);
+    }
+
+    /**
+     * Registers a pool to ask for disposal of idle datasets when the budget is exceeded.
+     *
+     * @param  pool  the pool to register. Will be unregistered automatically when garbage-collected.
+     */
+    static void register(final DataSetPool pool) {
+        synchronized (POOLS) {
+            POOLS.add(pool);
+        }
+    }
+
+    /**
+     * Counts a native dataset handle which has just been opened.
+     */
+    static void opened() {
+        OPEN_HANDLES.incrementAndGet();
+    }
+
+    /**
+     * Counts a native dataset handle which has just been deleted.
+     */
+    static void deleted() {
+        OPEN_HANDLES.decrementAndGet();
+    }
+
+    /**
+     * Registers an action to execute if the given dataset is garbage-collected without having been closed.
+     * The action shall not reference the dataset, otherwise the dataset would never be garbage-collected.
+     *
+     * @param  dataset  the dataset to watch.
+     * @param  name     the dataset name for logging purpose.
+     * @param  cleanup  the action disposing the native resources of the dataset.
+     * @return a handle to give to {@link #closed(Object)} when the dataset is closed normally.
+     */
+    static Object watch(final DataSet dataset, final String name, final Runnable cleanup) {
+        return new Tracker(dataset, 0, cleanup, name);
+    }
+
+    /**
+     * Notifies that a dataset has been closed normally, so its cleanup action shall not be executed.
+     *
+     * @param  handle  the value returned by {@link #watch(DataSet, String, Runnable)}.
+     */
+    static void closed(final Object handle) {
+        final Tracker tracker = (Tracker) handle;
+        TRACKERS.remove(tracker);
+        tracker.clear();
+    }
+
+    /**
+     * Releases the resources of garbage-collected objects. This method runs forever in a daemon thread.
+     */
+    private static void reclaim() {
+        while (true) {
+            final Tracker tracker;
+            try {
+                tracker = (Tracker) QUEUE.remove();
+            } catch (InterruptedException e) {
+                continue;                   // Nobody should interrupt this thread; ignore.
+            }
+            reclaim(tracker);
+        }
+    }
+
+    /**
+     * Releases the resources of the given garbage-collected object. This is the action executed by the
+     * background thread for each dequeued reference. This method is package-private for allowing tests
+     * to simulate garbage collection deterministically.
+     *
+     * @param  handle  the value returned by {@link #track(ByteBuffer, long)} or {@link #watch(DataSet, String, Runnable)}.
+     * @return whether resources have been released, or {@code false} if already done.
+     */
+    static boolean reclaim(final Object handle) {
+        final Tracker tracker = (Tracker) handle;
+        if (!TRACKERS.remove(tracker)) {
+            return false;
+        }
+        tracker.clear();
+        ALLOCATED.addAndGet(-tracker.size);
+        if (tracker.cleanup != null) {
+            LOGGER.warning("DataSet \"" + tracker.name + "\" has been garbage-collected without having been closed.");
+            try {
+                tracker.cleanup.run();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Can not dispose a leaked DataSet.", e);
+            }
+        }
+        return true;
+    }
+}
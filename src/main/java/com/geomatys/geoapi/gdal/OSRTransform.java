@@ -0,0 +1,234 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import org.gdal.osr.CoordinateTransformation;
+import org.gdal.osr.SpatialReference;
+import org.gdal.osr.osrConstants;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform2D;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.NoninvertibleTransformException;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.util.FactoryException;
+
+
+/**
+ * A math transform backed by a GDAL {@code CoordinateTransformation}. Coordinates are given to GDAL
+ * in chunks of {@value #CHUNK_SIZE} points, with a single native call per chunk. Points that GDAL
+ * can not transform are set to {@link Double#NaN}.
+ *
+ * <p>Coordinates are in the traditional GIS order (longitude before latitude), consistently with
+ * the geotransforms of GDAL datasets. Instances are thread-safe; concurrent calls are serialized.</p>
+ *
+ * <p>The native GDAL object should be released by a call to {@link #close()} when the transform
+ * is no longer needed, instead of waiting for garbage collection.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ *
+ * @see <a href="http://gdal.org/java/org/gdal/osr/CoordinateTransformation.html">GDAL CoordinateTransformation</a>
+ */
+public final class OSRTransform extends Transform2D implements AutoCloseable {
+    /**
+     * Maximal number of points given to GDAL in a single native call.
+     */
+    static final int CHUNK_SIZE = 4096;
+
+    /**
+     * Well Known Texts of the source and target coordinate reference systems.
+     */
+    private final String sourceWKT, targetWKT;
+
+    /**
+     * The GDAL transformation. All usages shall be synchronized on this object.
+     */
+    private final CoordinateTransformation transform;
+
+    /**
+     * Whether {@link #close()} has been invoked. Accesses shall be synchronized on {@link #transform}.
+     */
+    private boolean closed;
+
+    /**
+     * The inverse transform, created when first needed.
+     */
+    private OSRTransform inverse;
+
+    /**
+     * Creates a new transform between the given coordinate reference systems.
+     *
+     * @param  sourceWKT  Well Known Text of the source coordinate reference system.
+     * @param  targetWKT  Well Known Text of the target coordinate reference system.
+     * @throws FactoryException if GDAL can not create the transformation.
+     */
+    OSRTransform(final String sourceWKT, final String targetWKT) throws FactoryException {
+        this.sourceWKT = sourceWKT;
+        this.targetWKT = targetWKT;
+        final SpatialReference source = new SpatialReference(sourceWKT);
+        try {
+            final SpatialReference target = new SpatialReference(targetWKT);
+            try {
+                source.SetAxisMappingStrategy(osrConstants.OAMS_TRADITIONAL_GIS_ORDER);
+                target.SetAxisMappingStrategy(osrConstants.OAMS_TRADITIONAL_GIS_ORDER);
+                transform = CoordinateTransformation.CreateCoordinateTransformation(source, target);
+            } finally {
+                target.delete();
+            }
+        } finally {
+            source.delete();
+        }
+        if (transform == null) {
+            throw new FactoryException(GDALException.lastError("Can not create the coordinate transformation.").getMessage());
+        }
+    }
+
+    /**
+     * Creates a transform between the given coordinate reference systems.
+     *
+     * @param  source  the source coordinate reference system.
+     * @param  target  the target coordinate reference system.
+     * @return the transform from the source to the target CRS.
+     * @throws FactoryException if a CRS has no Well Known Text, or GDAL can not create the transformation.
+     */
+    public static OSRTransform create(final CoordinateReferenceSystem source, final CoordinateReferenceSystem target)
+            throws FactoryException
+    {
+        final String sourceWKT = source.toWKT();
+        final String targetWKT = target.toWKT();
+        if (sourceWKT == null || targetWKT == null) {
+            throw new FactoryException("Coordinate reference systems shall have a Well Known Text.");
+        }
+        return new OSRTransform(sourceWKT, targetWKT);
+    }
+
+    /**
+     * Transforms a list of coordinate tuples. The points are copied in a temporary array
+     * and given to GDAL by chunks, with one native call per chunk. Points that GDAL can not
+     * transform are set to NaN, unless all points of a chunk failed.
+     *
+     * @throws TransformException if GDAL failed to transform all points of a chunk, or the transform is closed.
+     */
+    @Override
+    public void transform(double[] srcPts, int srcOff, final double[] dstPts, int dstOff, final int numPts)
+            throws TransformException
+    {
+        if (srcPts == dstPts && srcOff < dstOff && srcOff + numPts*2 > dstOff) {
+            srcPts = Arrays.copyOfRange(srcPts, srcOff, srcOff + numPts*2);     // Overlapping regions.
+            srcOff = 0;
+        }
+        final double[][] points = new double[Math.min(numPts, CHUNK_SIZE)][2];
+        for (int done = 0; done < numPts;) {
+            final int n = Math.min(numPts - done, CHUNK_SIZE);
+            final double[][] chunk = (n == points.length) ? points : Arrays.copyOf(points, n);
+            for (final double[] p : chunk) {
+                p[0] = srcPts[srcOff++];
+                p[1] = srcPts[srcOff++];
+            }
+            synchronized (transform) {
+                if (closed) {
+                    throw new TransformException("The transform has been closed.");
+                }
+                transform.TransformPoints(chunk);
+            }
+            int failures = 0;
+            for (final double[] p : chunk) {
+                final double x = finite(p[0]);
+                final double y = finite(p[1]);
+                if (Double.isNaN(x) || Double.isNaN(y)) {
+                    failures++;
+                }
+                dstPts[dstOff++] = x;
+                dstPts[dstOff++] = y;
+            }
+            if (failures == n) {
+                throw new TransformException(GDALException.lastError("Can not transform " + n + " points.").getMessage());
+            }
+            done += n;
+        }
+    }
+
+    /**
+     * Replaces the infinite values used by GDAL for failed transformations by NaN.
+     */
+    private static double finite(final double value) {
+        return Double.isInfinite(value) ? Double.NaN : value;
+    }
+
+    /**
+     * Unsupported operation, since GDAL does not provide derivatives.
+     *
+     * @throws TransformException always thrown.
+     */
+    @Override
+    public Matrix derivative(final Point2D point) throws TransformException {
+        throw new TransformException("Derivatives are not provided by GDAL.");
+    }
+
+    /**
+     * Returns the transform from the target to the source CRS.
+     *
+     * @return the inverse transform.
+     * @throws NoninvertibleTransformException if GDAL can not create the inverse transformation.
+     */
+    @Override
+    public synchronized MathTransform2D inverse() throws NoninvertibleTransformException {
+        if (inverse == null) {
+            try {
+                inverse = new OSRTransform(targetWKT, sourceWKT);
+            } catch (FactoryException e) {
+                throw (NoninvertibleTransformException) new NoninvertibleTransformException(e.getMessage()).initCause(e);
+            }
+            inverse.inverse = this;
+        }
+        return inverse;
+    }
+
+    /**
+     * Returns {@code false} since this class does not check whether the two CRS are equivalent.
+     */
+    @Override
+    public boolean isIdentity() {
+        return false;
+    }
+
+    /**
+     * Returns {@code null} since GDAL does not format transforms as Well Known Text.
+     * The source and target CRS can be formatted instead.
+     *
+     * @return {@code null}.
+     */
+    @Override
+    public String toWKT() {
+        return null;
+    }
+
+    /**
+     * Releases the native GDAL object. The transform can not be used anymore after this method call.
+     * The {@linkplain #inverse() inverse transform}, if it has been created, is a separated object
+     * which needs to be closed separately. Invoking this method many times has no effect.
+     */
+    @Override
+    public void close() {
+        synchronized (transform) {
+            if (!closed) {
+                closed = true;
+                transform.delete();
+            }
+        }
+    }
+}
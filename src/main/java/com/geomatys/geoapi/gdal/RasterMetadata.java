@@ -13,11 +13,13 @@
  */
 package com.geomatys.geoapi.gdal;
 
+import java.awt.geom.AffineTransform;
 import java.io.IOException;
 import java.util.Date;
 import java.util.Locale;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import org.gdal.gdal.Dataset;
 import org.opengis.metadata.Metadata;
 import org.opengis.metadata.citation.Citation;
@@ -56,6 +58,11 @@ import org.opengis.metadata.maintenance.ScopeCode;
 import org.opengis.metadata.quality.DataQuality;
 import org.opengis.metadata.spatial.SpatialRepresentationType;
 import org.opengis.referencing.ReferenceSystem;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.crs.GeographicCRS;
+import org.opengis.referencing.crs.ProjectedCRS;
+import org.opengis.referencing.operation.TransformException;
+import org.opengis.util.FactoryException;
 import org.opengis.util.InternationalString;
 import org.opengis.util.RecordType;
 
@@ -76,34 +83,168 @@ final class RasterMetadata extends GridGeometry implements Metadata, DataIdentif
     /**
      * The dataset name, or {@code null} if none.
      */
-    private final String description;
+    private String description;
 
     /**
      * Whether each point represents a cell, and area or a volume.
      */
-    private final CellGeometry cellGeometry;
+    private CellGeometry cellGeometry;
+
+    /**
+     * Whether {@link #description} and {@link #cellGeometry} have been fetched.
+     */
+    private boolean described;
+
+    /**
+     * Statistics about each band, or an empty list if not computed.
+     *
+     * @see DataSet#computeStatistics(int)
+     */
+    private volatile Collection<RangeDimension> dimensions = Collections.emptyList();
+
+    /**
+     * The geographic bounding box of the raster, or an empty set if it can not be computed.
+     * This is computed when first needed.
+     *
+     * @see #getExtents()
+     */
+    private volatile Collection<Extent> extents;
 
     /**
      * Fetches metadata from the given GDAL dataset.
+     * If {@code source} is non-null, only the raster size is fetched now and other properties
+     * will be fetched from {@code source} when first needed.
+     *
+     * @param  source  the dataset from which to fetch properties in lazy mode, or {@code null} for eager mode.
+     * @param  ds      the native handle to use during construction. Caller shall synchronize on that handle.
+     * @throws IOException if the dataset is closed.
      */
-    RasterMetadata(final Dataset ds) throws IOException {
-        super(ds);
+    RasterMetadata(final DataSet source, final Dataset ds) throws IOException {
+        super(source, ds);
+        if (source == null) {
+            fetchDescription(ds);
+        }
+    }
+
+    /**
+     * Creates metadata from values fetched previously, for example from a {@link MetadataIndex}.
+     *
+     * @param  xSize         number of pixel columns.
+     * @param  ySize         number of pixel rows.
+     * @param  numBands      number of bands.
+     * @param  gridToCRS     conversion from pixel corner coordinates to "real world" coordinates.
+     * @param  crs           the coordinate reference system, or {@code null} if unknown.
+     * @param  description   the dataset name, or {@code null} if none.
+     * @param  cellGeometry  whether each point represents a cell or an area, or {@code null} if unknown.
+     */
+    RasterMetadata(final int xSize, final int ySize, final int numBands,
+                   final AffineTransform gridToCRS, final CoordinateReferenceSystem crs,
+                   final String description, final CellGeometry cellGeometry)
+    {
+        super(xSize, ySize, numBands, gridToCRS, crs);
+        this.description  = description;
+        this.cellGeometry = cellGeometry;
+        described = true;
+    }
+
+    /**
+     * Fetches the description and cell geometry from the given GDAL dataset.
+     */
+    private void fetchDescription(final Dataset ds) {
         description  = trim(ds.GetDescription());
         String value = trim(ds.GetMetadataItem("AREA_OR_POINT"));
         if ("Point".equalsIgnoreCase(value)) {
             cellGeometry = CellGeometry.POINT;
         } else if ("Area".equalsIgnoreCase(value)) {
             cellGeometry = CellGeometry.AREA;
-        } else {
-            cellGeometry = null;
         }
+        described = true;
+    }
+
+    /**
+     * Returns the description, fetching it from the dataset if not already done.
+     */
+    final synchronized String description() {
+        if (!described) {
+            fetch(this::fetchDescription);
+        }
+        return description;
     }
 
     /**
      * Trims the leading and trailing spaces in the given string and returns {@code null} if the result is empty.
      */
     private static String trim(String value) {
-        return (value = value.trim()).isEmpty() ? null : value;
+        return (value == null || (value = value.trim()).isEmpty()) ? null : value;
+    }
+
+    /**
+     * Returns the title of the dataset, or {@code null} if none.
+     */
+    @Override
+    public InternationalString getTitle() {
+        final String title = description();
+        return (title != null) ? new Literal(title) : null;
+    }
+
+    /**
+     * Tells whether each point represents a cell, and area or a volume.
+     */
+    @Override
+    public synchronized CellGeometry getCellGeometry() {
+        if (!described) {
+            fetch(this::fetchDescription);
+        }
+        return cellGeometry;
+    }
+
+    /**
+     * Sets the statistics computed for each band.
+     *
+     * @param  statistics  statistics for each band, in band order.
+     */
+    final void setDimensions(final List<BandStatistics> statistics) {
+        dimensions = Collections.<RangeDimension>unmodifiableList(statistics);
+    }
+
+    /**
+     * Returns statistics about each band, or an empty list if they have not been computed.
+     */
+    @Override
+    public Collection<RangeDimension> getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Returns the geographic bounding box of the raster, or an empty set if the CRS is unknown
+     * or the raster footprint can not be transformed to geographic coordinates.
+     */
+    @Override
+    public Collection<Extent> getExtents() {
+        Collection<Extent> result = extents;
+        if (result == null) {
+            result = emptySet();
+            CoordinateReferenceSystem crs = getCoordinateReferenceSystem();
+            if (crs instanceof ProjectedCRS) {
+                crs = ((ProjectedCRS) crs).getBaseCRS();
+            }
+            if (crs instanceof GeographicCRS) try {
+                result = Collections.<Extent>singleton(new GeographicBounds(getFootprint(crs)));
+            } catch (FactoryException | TransformException e) {
+                // Leave the extent empty, since it is an optional metadata element.
+            }
+            extents = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the coordinate reference system of the raster, or an empty set if unknown.
+     */
+    @Override
+    public Collection<ReferenceSystem> getReferenceSystemInfo() {
+        final ReferenceSystem crs = getCoordinateReferenceSystem();
+        return (crs != null) ? Collections.singleton(crs) : Collections.emptyList();
     }
 
     /* ISO 19115:2014 properties for which we provide information. */
@@ -112,14 +253,11 @@ final class RasterMetadata extends GridGeometry implements Metadata, DataIdentif
     @Override public Collection<SpatialRepresentation> getSpatialRepresentationInfo() {return Collections.<SpatialRepresentation>singleton(this);}
     @Override public Collection<ContentInformation>    getContentInfo()               {return Collections.<ContentInformation>singleton(this);}
     @Override public Citation                          getCitation()                  {return this;}
-    @Override public InternationalString               getTitle()                     {return new Literal(description);}
-    @Override public CellGeometry                      getCellGeometry()              {return cellGeometry;}
 
     /* ISO 19115:2014 properties that are empty of null for now. */
     @Override public RecordType                 getAttributeDescription()    {return null;}
     @Override public InternationalString        getAbstract()                {return null;}
     @Override public Collection<TopicCategory>  getTopicCategories()         {return emptySet();}
-    @Override public Collection<Extent>         getExtents()                 {return emptySet();}
 
     /** Optional properties. */
     @Override public String                                   getFileIdentifier()             {return null;}
@@ -133,7 +271,6 @@ final class RasterMetadata extends GridGeometry implements Metadata, DataIdentif
     @Override public String                                   getMetadataStandardVersion()    {return null;}
     @Override public String                                   getDataSetUri()                 {return null;}
     @Override public Collection<Locale>                       getLocales()                    {return Collections.emptyList();}
-    @Override public Collection<ReferenceSystem>              getReferenceSystemInfo()        {return Collections.emptyList();}
     @Override public Collection<MetadataExtensionInformation> getMetadataExtensionInfo()      {return Collections.emptyList();}
     @Override public Distribution                             getDistributionInfo()           {return null;}
     @Override public Collection<DataQuality>                  getDataQualityInfo()            {return Collections.emptyList();}
@@ -172,6 +309,5 @@ final class RasterMetadata extends GridGeometry implements Metadata, DataIdentif
     @Override public String                                   getISBN()                       {return null;}
     @Override public String                                   getISSN()                       {return null;}
     @Override public CoverageContentType                      getContentType()                {return null;}
-    @Override public Collection<RangeDimension>               getDimensions()                 {return Collections.emptyList();}
     @Override public Collection<RangeElementDescription>      getRangeElementDescriptions()   {return Collections.emptyList();}
 }
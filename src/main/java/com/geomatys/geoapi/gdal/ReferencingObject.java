@@ -37,23 +37,65 @@ abstract class ReferencingObject implements IdentifiedObject, ReferenceIdentifie
     private final String name;
 
     /**
-     * For subclass constructors.
+     * Identifier given by an authority such as EPSG, or {@code null} if none.
+     */
+    private final AuthorityCode identifier;
+
+    /**
+     * For subclass constructors of objects without identifier.
      *
      * @param  name  name of this referencing object.
      */
     ReferencingObject(final String name) {
-        this.name = name;
+        this(name, null);
+    }
+
+    /**
+     * For subclass constructors.
+     *
+     * @param  name        name of this referencing object.
+     * @param  identifier  identifier given by an authority such as EPSG, or {@code null} if none.
+     */
+    ReferencingObject(final String name, final AuthorityCode identifier) {
+        this.name       = name;
+        this.identifier = identifier;
     }
 
-    @Override public final ReferenceIdentifier getName()  {return this;}
-    @Override public final String              getCode()  {return name;}
-    @Override public final String              toString() {return toWKT();}
+    /**
+     * Returns the identifier given by an authority such as EPSG, or {@code null} if none.
+     *
+     * @return the authority code, or {@code null} if none.
+     */
+    final AuthorityCode identifier() {
+        return identifier;
+    }
+
+    /**
+     * Returns the identifiers of this object, which is the EPSG code when it has been identified.
+     * The {@linkplain #getName() name} has no authority since it is a free text given by GDAL,
+     * so this method is the only way to get the EPSG code.
+     */
+    @Override
+    public final Set<ReferenceIdentifier> getIdentifiers() {
+        return (identifier != null) ? Collections.singleton(identifier) : Collections.emptySet();
+    }
+
+    @Override public final ReferenceIdentifier getName()      {return this;}
+    @Override public final String              getCode()      {return name;}
+    @Override public final Citation            getAuthority() {return null;}
+    @Override public final String              getCodeSpace() {return null;}
+
+    /**
+     * Returns the Well Known Text of this object, or its name if this object can not be formatted as WKT.
+     */
+    @Override
+    public final String toString() {
+        final String wkt = toWKT();
+        return (wkt != null) ? wkt : name;
+    }
 
     /** Unimplemented methods. */
     @Override public Collection<GenericName>  getAlias()       {return Collections.emptyList();}
-    @Override public Set<ReferenceIdentifier> getIdentifiers() {return Collections.emptySet();}
-    @Override public Citation                 getAuthority()   {return null;}
-    @Override public String                   getCodeSpace()   {return null;}
     @Override public String                   getVersion()     {return null;}
     @Override public InternationalString      getRemarks()     {return null;}
 }
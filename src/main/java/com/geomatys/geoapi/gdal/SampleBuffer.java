@@ -0,0 +1,596 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import org.gdal.gdalconst.gdalconst;
+import org.opengis.metadata.spatial.GridSpatialRepresentation;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform2D;
+
+
+/**
+ * Sample values of a window of a raster, stored in native memory with the Java type closest to the
+ * type of the GDAL band. For example values of {@code GDT_Byte} bands are stored with one byte per
+ * sample instead of being converted to {@code double}. Subclasses provide access to values with
+ * their primitive type, without boxing, and bulk copies to and from arrays of that type.
+ *
+ * <p>Values are stored band after band, then row after row, as in {@link DataSet#read(java.awt.Rectangle,
+ * int[], int, ByteBuffer)}. The {@link #index(int, int, int)} method computes the position of a sample.
+ * Each buffer also carries the grid geometry of its window, which maps the buffer pixel coordinates
+ * to "real world" coordinates.</p>
+ *
+ * <p>Sample buffers are not thread-safe for writing, but can be read concurrently.</p>
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ *
+ * @see DataSet#readSamples(java.awt.Rectangle, int, int, int[])
+ */
+public abstract class SampleBuffer {
+    /**
+     * The native memory where sample values are stored, in native byte order.
+     */
+    final ByteBuffer buffer;
+
+    /**
+     * The size and georeferencing of the window held by this buffer.
+     */
+    private final GridGeometry grid;
+
+    /**
+     * Creates a new buffer for the given grid, with the given number of bytes per sample.
+     */
+    SampleBuffer(final GridGeometry grid, final int sampleSize) throws GDALException {
+        this.grid = grid;
+        final long length = (long) grid.getWidth() * grid.getHeight() * grid.getNumBands() * sampleSize;
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Window of " + grid.getWidth() + '×' + grid.getHeight() + " pixels is too large.");
+        }
+        buffer = NativeResources.allocate((int) length).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Creates a buffer for the given grid with the Java type the most suitable for the given GDAL type.
+     * Types without exact Java equivalent ({@code GDT_UInt32} and complex numbers) are stored as {@code double}.
+     *
+     * @param  bandType  the GDAL type of the band values.
+     * @param  grid      the size and georeferencing of the window.
+     * @return a buffer for the given grid.
+     * @throws GDALException if the native memory budget would be exceeded.
+     */
+    static SampleBuffer create(final int bandType, final GridGeometry grid) throws GDALException {
+        if (bandType == gdalconst.GDT_Byte)    return new Bytes(grid);
+        if (bandType == gdalconst.GDT_Int16)   return new Shorts(grid);
+        if (bandType == gdalconst.GDT_UInt16)  return new UnsignedShorts(grid);
+        if (bandType == gdalconst.GDT_Int32)   return new Ints(grid);
+        if (bandType == gdalconst.GDT_Float32) return new Floats(grid);
+        return new Doubles(grid);
+    }
+
+    /**
+     * Returns the GDAL type of values stored in this buffer.
+     *
+     * @return the data type as a {@link gdalconst} {@code GDT_*} constant.
+     */
+    public abstract int getDataType();
+
+    /**
+     * Returns the number of columns in this buffer.
+     *
+     * @return number of columns.
+     */
+    public final int getWidth() {
+        return grid.getWidth();
+    }
+
+    /**
+     * Returns the number of rows in this buffer.
+     *
+     * @return number of rows.
+     */
+    public final int getHeight() {
+        return grid.getHeight();
+    }
+
+    /**
+     * Returns the number of bands in this buffer.
+     *
+     * @return number of bands.
+     */
+    public final int getNumBands() {
+        return grid.getNumBands();
+    }
+
+    /**
+     * Returns the total number of samples in this buffer, for all bands.
+     *
+     * @return width × height × number of bands.
+     */
+    public final int size() {
+        return getWidth() * getHeight() * getNumBands();
+    }
+
+    /**
+     * Returns the size and georeferencing of the window held by this buffer.
+     * Pixel (0,0) of the grid is the first pixel of this buffer.
+     *
+     * @return the grid geometry of this buffer.
+     */
+    public final GridSpatialRepresentation getGridGeometry() {
+        return grid;
+    }
+
+    /**
+     * Returns the conversion from pixel coordinates of this buffer to "real world" coordinates.
+     *
+     * @return the "grid to CRS" transform, mapping pixel corners.
+     */
+    public final MathTransform2D getGridToCRS() {
+        return grid.getGridToCRSTransform();
+    }
+
+    /**
+     * Returns the target of {@link #getGridToCRS()}.
+     *
+     * @return the coordinate reference system, or {@code null} if unknown.
+     */
+    public final CoordinateReferenceSystem getCoordinateReferenceSystem() {
+        return grid.getCoordinateReferenceSystem();
+    }
+
+    /**
+     * Returns the position of the sample at the given location in this buffer.
+     *
+     * @param  band  index of the band in this buffer, from 0 inclusive to {@link #getNumBands()} exclusive.
+     * @param  x     column of the pixel.
+     * @param  y     row of the pixel.
+     * @return index of the sample, to give to {@code get(int)} or {@code set(int, …)} methods.
+     */
+    public final int index(final int band, final int x, final int y) {
+        final int width  = getWidth();
+        final int height = getHeight();
+        if (band < 0 || band >= getNumBands() || x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IndexOutOfBoundsException("No sample at band " + band + ", pixel (" + x + ", " + y + ").");
+        }
+        return (band * height + y) * width + x;
+    }
+
+    /**
+     * Returns the sample value at the given index, converted to {@code double}.
+     *
+     * @param  index  the sample index.
+     * @return the sample value.
+     */
+    public abstract double getDouble(int index);
+
+    /**
+     * Sets the sample value at the given index, converted from {@code double} with the same rules as a
+     * Java cast. Values out of the range of unsigned types are wrapped.
+     *
+     * @param  index  the sample index.
+     * @param  value  the new sample value.
+     */
+    public abstract void setDouble(int index, double value);
+
+    /**
+     * Samples of {@code GDT_Byte} bands, which are unsigned 8 bits integers.
+     */
+    public static final class Bytes extends SampleBuffer {
+        /** Creates a buffer for the given grid. */
+        Bytes(final GridGeometry grid) throws GDALException {
+            super(grid, Byte.BYTES);
+        }
+
+        /** Returns {@code GDT_Byte}. */
+        @Override public int getDataType() {return gdalconst.GDT_Byte;}
+
+        /**
+         * Returns the sample value at the given index, in the 0 to 255 range.
+         *
+         * @param  index  the sample index.
+         * @return the sample value.
+         */
+        public int get(final int index) {
+            return Byte.toUnsignedInt(buffer.get(index));
+        }
+
+        /**
+         * Sets the sample value at the given index. Only the 8 lowest bits are stored.
+         *
+         * @param  index  the sample index.
+         * @param  value  the new sample value.
+         */
+        public void set(final int index, final int value) {
+            buffer.put(index, (byte) value);
+        }
+
+        /**
+         * Copies samples to the given array, as signed bytes. Use {@link Byte#toUnsignedInt(byte)} for the values.
+         *
+         * @param  index   index of the first sample to copy.
+         * @param  dst     the destination array.
+         * @param  offset  index of the first element to write in the destination array.
+         * @param  length  number of samples to copy.
+         */
+        public void get(final int index, final byte[] dst, final int offset, final int length) {
+            final ByteBuffer b = buffer.duplicate();
+            b.position(index);
+            b.get(dst, offset, length);
+        }
+
+        /**
+         * Copies samples from the given array.
+         *
+         * @param  index   index of the first sample to overwrite.
+         * @param  src     the source array.
+         * @param  offset  index of the first element to read in the source array.
+         * @param  length  number of samples to copy.
+         */
+        public void set(final int index, final byte[] src, final int offset, final int length) {
+            final ByteBuffer b = buffer.duplicate();
+            b.position(index);
+            b.put(src, offset, length);
+        }
+
+        @Override public double getDouble(int index)               {return get(index);}
+        @Override public void   setDouble(int index, double value) {set(index, (int) value);}
+    }
+
+    /**
+     * Samples of {@code GDT_Int16} bands, which are signed 16 bits integers.
+     */
+    public static final class Shorts extends SampleBuffer {
+        /** View of the buffer as {@code short} values. */
+        private final ShortBuffer values;
+
+        /** Creates a buffer for the given grid. */
+        Shorts(final GridGeometry grid) throws GDALException {
+            super(grid, Short.BYTES);
+            values = buffer.asShortBuffer();
+        }
+
+        /** Returns {@code GDT_Int16}. */
+        @Override public int getDataType() {return gdalconst.GDT_Int16;}
+
+        /**
+         * Returns the sample value at the given index.
+         *
+         * @param  index  the sample index.
+         * @return the sample value.
+         */
+        public short get(final int index) {
+            return values.get(index);
+        }
+
+        /**
+         * Sets the sample value at the given index.
+         *
+         * @param  index  the sample index.
+         * @param  value  the new sample value.
+         */
+        public void set(final int index, final short value) {
+            values.put(index, value);
+        }
+
+        /**
+         * Copies samples to the given array.
+         *
+         * @param  index   index of the first sample to copy.
+         * @param  dst     the destination array.
+         * @param  offset  index of the first element to write in the destination array.
+         * @param  length  number of samples to copy.
+         */
+        public void get(final int index, final short[] dst, final int offset, final int length) {
+            final ShortBuffer b = values.duplicate();
+            b.position(index);
+            b.get(dst, offset, length);
+        }
+
+        /**
+         * Copies samples from the given array.
+         *
+         * @param  index   index of the first sample to overwrite.
+         * @param  src     the source array.
+         * @param  offset  index of the first element to read in the source array.
+         * @param  length  number of samples to copy.
+         */
+        public void set(final int index, final short[] src, final int offset, final int length) {
+            final ShortBuffer b = values.duplicate();
+            b.position(index);
+            b.put(src, offset, length);
+        }
+
+        @Override public double getDouble(int index)               {return get(index);}
+        @Override public void   setDouble(int index, double value) {set(index, (short) value);}
+    }
+
+    /**
+     * Samples of {@code GDT_UInt16} bands, which are unsigned 16 bits integers.
+     */
+    public static final class UnsignedShorts extends SampleBuffer {
+        /** View of the buffer as {@code short} values, to interpret as unsigned. */
+        private final ShortBuffer values;
+
+        /** Creates a buffer for the given grid. */
+        UnsignedShorts(final GridGeometry grid) throws GDALException {
+            super(grid, Short.BYTES);
+            values = buffer.asShortBuffer();
+        }
+
+        /** Returns {@code GDT_UInt16}. */
+        @Override public int getDataType() {return gdalconst.GDT_UInt16;}
+
+        /**
+         * Returns the sample value at the given index, in the 0 to 65535 range.
+         *
+         * @param  index  the sample index.
+         * @return the sample value.
+         */
+        public int get(final int index) {
+            return Short.toUnsignedInt(values.get(index));
+        }
+
+        /**
+         * Sets the sample value at the given index. Only the 16 lowest bits are stored.
+         *
+         * @param  index  the sample index.
+         * @param  value  the new sample value.
+         */
+        public void set(final int index, final int value) {
+            values.put(index, (short) value);
+        }
+
+        /**
+         * Copies samples to the given array, as signed shorts. Use {@link Short#toUnsignedInt(short)} for the values.
+         *
+         * @param  index   index of the first sample to copy.
+         * @param  dst     the destination array.
+         * @param  offset  index of the first element to write in the destination array.
+         * @param  length  number of samples to copy.
+         */
+        public void get(final int index, final short[] dst, final int offset, final int length) {
+            final ShortBuffer b = values.duplicate();
+            b.position(index);
+            b.get(dst, offset, length);
+        }
+
+        /**
+         * Copies samples from the given array.
+         *
+         * @param  index   index of the first sample to overwrite.
+         * @param  src     the source array.
+         * @param  offset  index of the first element to read in the source array.
+         * @param  length  number of samples to copy.
+         */
+        public void set(final int index, final short[] src, final int offset, final int length) {
+            final ShortBuffer b = values.duplicate();
+            b.position(index);
+            b.put(src, offset, length);
+        }
+
+        @Override public double getDouble(int index)               {return get(index);}
+        @Override public void   setDouble(int index, double value) {set(index, (int) value);}
+    }
+
+    /**
+     * Samples of {@code GDT_Int32} bands, which are signed 32 bits integers.
+     */
+    public static final class Ints extends SampleBuffer {
+        /** View of the buffer as {@code int} values. */
+        private final IntBuffer values;
+
+        /** Creates a buffer for the given grid. */
+        Ints(final GridGeometry grid) throws GDALException {
+            super(grid, Integer.BYTES);
+            values = buffer.asIntBuffer();
+        }
+
+        /** Returns {@code GDT_Int32}. */
+        @Override public int getDataType() {return gdalconst.GDT_Int32;}
+
+        /**
+         * Returns the sample value at the given index.
+         *
+         * @param  index  the sample index.
+         * @return the sample value.
+         */
+        public int get(final int index) {
+            return values.get(index);
+        }
+
+        /**
+         * Sets the sample value at the given index.
+         *
+         * @param  index  the sample index.
+         * @param  value  the new sample value.
+         */
+        public void set(final int index, final int value) {
+            values.put(index, value);
+        }
+
+        /**
+         * Copies samples to the given array.
+         *
+         * @param  index   index of the first sample to copy.
+         * @param  dst     the destination array.
+         * @param  offset  index of the first element to write in the destination array.
+         * @param  length  number of samples to copy.
+         */
+        public void get(final int index, final int[] dst, final int offset, final int length) {
+            final IntBuffer b = values.duplicate();
+            b.position(index);
+            b.get(dst, offset, length);
+        }
+
+        /**
+         * Copies samples from the given array.
+         *
+         * @param  index   index of the first sample to overwrite.
+         * @param  src     the source array.
+         * @param  offset  index of the first element to read in the source array.
+         * @param  length  number of samples to copy.
+         */
+        public void set(final int index, final int[] src, final int offset, final int length) {
+            final IntBuffer b = values.duplicate();
+            b.position(index);
+            b.put(src, offset, length);
+        }
+
+        @Override public double getDouble(int index)               {return get(index);}
+        @Override public void   setDouble(int index, double value) {set(index, (int) value);}
+    }
+
+    /**
+     * Samples of {@code GDT_Float32} bands.
+     */
+    public static final class Floats extends SampleBuffer {
+        /** View of the buffer as {@code float} values. */
+        private final FloatBuffer values;
+
+        /** Creates a buffer for the given grid. */
+        Floats(final GridGeometry grid) throws GDALException {
+            super(grid, Float.BYTES);
+            values = buffer.asFloatBuffer();
+        }
+
+        /** Returns {@code GDT_Float32}. */
+        @Override public int getDataType() {return gdalconst.GDT_Float32;}
+
+        /**
+         * Returns the sample value at the given index.
+         *
+         * @param  index  the sample index.
+         * @return the sample value.
+         */
+        public float get(final int index) {
+            return values.get(index);
+        }
+
+        /**
+         * Sets the sample value at the given index.
+         *
+         * @param  index  the sample index.
+         * @param  value  the new sample value.
+         */
+        public void set(final int index, final float value) {
+            values.put(index, value);
+        }
+
+        /**
+         * Copies samples to the given array.
+         *
+         * @param  index   index of the first sample to copy.
+         * @param  dst     the destination array.
+         * @param  offset  index of the first element to write in the destination array.
+         * @param  length  number of samples to copy.
+         */
+        public void get(final int index, final float[] dst, final int offset, final int length) {
+            final FloatBuffer b = values.duplicate();
+            b.position(index);
+            b.get(dst, offset, length);
+        }
+
+        /**
+         * Copies samples from the given array.
+         *
+         * @param  index   index of the first sample to overwrite.
+         * @param  src     the source array.
+         * @param  offset  index of the first element to read in the source array.
+         * @param  length  number of samples to copy.
+         */
+        public void set(final int index, final float[] src, final int offset, final int length) {
+            final FloatBuffer b = values.duplicate();
+            b.position(index);
+            b.put(src, offset, length);
+        }
+
+        @Override public double getDouble(int index)               {return get(index);}
+        @Override public void   setDouble(int index, double value) {set(index, (float) value);}
+    }
+
+    /**
+     * Samples of {@code GDT_Float64} bands, and of bands having no better Java type.
+     */
+    public static final class Doubles extends SampleBuffer {
+        /** View of the buffer as {@code double} values. */
+        private final DoubleBuffer values;
+
+        /** Creates a buffer for the given grid. */
+        Doubles(final GridGeometry grid) throws GDALException {
+            super(grid, Double.BYTES);
+            values = buffer.asDoubleBuffer();
+        }
+
+        /** Returns {@code GDT_Float64}. */
+        @Override public int getDataType() {return gdalconst.GDT_Float64;}
+
+        /**
+         * Returns the sample value at the given index.
+         *
+         * @param  index  the sample index.
+         * @return the sample value.
+         */
+        public double get(final int index) {
+            return values.get(index);
+        }
+
+        /**
+         * Sets the sample value at the given index.
+         *
+         * @param  index  the sample index.
+         * @param  value  the new sample value.
+         */
+        public void set(final int index, final double value) {
+            values.put(index, value);
+        }
+
+        /**
+         * Copies samples to the given array.
+         *
+         * @param  index   index of the first sample to copy.
+         * @param  dst     the destination array.
+         * @param  offset  index of the first element to write in the destination array.
+         * @param  length  number of samples to copy.
+         */
+        public void get(final int index, final double[] dst, final int offset, final int length) {
+            final DoubleBuffer b = values.duplicate();
+            b.position(index);
+            b.get(dst, offset, length);
+        }
+
+        /**
+         * Copies samples from the given array.
+         *
+         * @param  index   index of the first sample to overwrite.
+         * @param  src     the source array.
+         * @param  offset  index of the first element to read in the source array.
+         * @param  length  number of samples to copy.
+         */
+        public void set(final int index, final double[] src, final int offset, final int length) {
+            final DoubleBuffer b = values.duplicate();
+            b.position(index);
+            b.put(src, offset, length);
+        }
+
+        @Override public double getDouble(int index)               {return get(index);}
+        @Override public void   setDouble(int index, double value) {set(index, value);}
+    }
+}
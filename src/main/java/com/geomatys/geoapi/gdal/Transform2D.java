@@ -0,0 +1,200 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import org.opengis.geometry.DirectPosition;
+import org.opengis.geometry.MismatchedDimensionException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform2D;
+import org.opengis.referencing.operation.Matrix;
+import org.opengis.referencing.operation.TransformException;
+
+
+/**
+ * Base class of two-dimensional transforms. All transform methods delegate to
+ * {@link #transform(double[], int, double[], int, int)}, which is the only one
+ * that subclasses need to implement efficiently.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+abstract class Transform2D implements MathTransform2D {
+    /**
+     * For subclass constructors.
+     */
+    Transform2D() {
+    }
+
+    @Override public final int getSourceDimensions() {return 2;}
+    @Override public final int getTargetDimensions() {return 2;}
+
+    /**
+     * Transforms a single point.
+     *
+     * @param  ptSrc  the point to transform.
+     * @param  ptDst  where to store the result, or {@code null}.
+     * @return the transformed point.
+     * @throws TransformException if the point can not be transformed.
+     */
+    @Override
+    public final Point2D transform(final Point2D ptSrc, Point2D ptDst) throws TransformException {
+        final double[] pt = {ptSrc.getX(), ptSrc.getY()};
+        transform(pt, 0, pt, 0, 1);
+        if (ptDst == null) {
+            ptDst = new Point2D.Double();
+        }
+        ptDst.setLocation(pt[0], pt[1]);
+        return ptDst;
+    }
+
+    /**
+     * Transforms a single position.
+     *
+     * @param  ptSrc  the position to transform.
+     * @param  ptDst  where to store the result, or {@code null}.
+     * @return the transformed position.
+     * @throws MismatchedDimensionException if a position is not two-dimensional.
+     * @throws TransformException if the position can not be transformed.
+     */
+    @Override
+    public final DirectPosition transform(final DirectPosition ptSrc, final DirectPosition ptDst) throws TransformException {
+        ensureTwoDimensional(ptSrc);
+        final double[] pt = ptSrc.getCoordinate();
+        transform(pt, 0, pt, 0, 1);
+        if (ptDst == null) {
+            return new Position(pt);
+        }
+        ensureTwoDimensional(ptDst);
+        ptDst.setOrdinate(0, pt[0]);
+        ptDst.setOrdinate(1, pt[1]);
+        return ptDst;
+    }
+
+    /**
+     * Ensures that the given position is two-dimensional.
+     */
+    private static void ensureTwoDimensional(final DirectPosition position) {
+        final int dimension = position.getDimension();
+        if (dimension != 2) {
+            throw new MismatchedDimensionException("Expected a two-dimensional position but got " + dimension + " dimensions.");
+        }
+    }
+
+    /**
+     * Transforms a list of coordinate tuples stored as {@code float} values.
+     * The coordinates are converted to {@code double} and transformed in a single call.
+     */
+    @Override
+    public final void transform(final float[] srcPts, final int srcOff, final float[] dstPts, final int dstOff, final int numPts)
+            throws TransformException
+    {
+        final double[] buffer = new double[numPts * 2];
+        for (int i=0; i<buffer.length; i++) buffer[i] = srcPts[srcOff + i];
+        transform(buffer, 0, buffer, 0, numPts);
+        for (int i=0; i<buffer.length; i++) dstPts[dstOff + i] = (float) buffer[i];
+    }
+
+    /**
+     * Transforms a list of coordinate tuples stored as {@code float} values into {@code double} values.
+     */
+    @Override
+    public final void transform(final float[] srcPts, final int srcOff, final double[] dstPts, final int dstOff, final int numPts)
+            throws TransformException
+    {
+        for (int i = numPts*2; --i >= 0;) dstPts[dstOff + i] = srcPts[srcOff + i];
+        transform(dstPts, dstOff, dstPts, dstOff, numPts);
+    }
+
+    /**
+     * Transforms a list of coordinate tuples stored as {@code double} values into {@code float} values.
+     */
+    @Override
+    public final void transform(final double[] srcPts, final int srcOff, final float[] dstPts, final int dstOff, final int numPts)
+            throws TransformException
+    {
+        final double[] buffer = new double[numPts * 2];
+        transform(srcPts, srcOff, buffer, 0, numPts);
+        for (int i=0; i<buffer.length; i++) dstPts[dstOff + i] = (float) buffer[i];
+    }
+
+    /**
+     * Transforms the points of the given shape. Straight lines are kept straight lines and curves
+     * are kept curves with transformed control points; no densification is performed.
+     *
+     * @param  shape  the shape to transform.
+     * @return the transformed shape.
+     * @throws TransformException if a point can not be transformed.
+     */
+    @Override
+    public Shape createTransformedShape(final Shape shape) throws TransformException {
+        final Path2D.Double path = new Path2D.Double();
+        final double[] coords = new double[6];
+        for (final PathIterator it = shape.getPathIterator(null); !it.isDone(); it.next()) {
+            final int type = it.currentSegment(coords);
+            switch (type) {
+                case PathIterator.SEG_MOVETO:  transform(coords, 0, coords, 0, 1); path.moveTo(coords[0], coords[1]); break;
+                case PathIterator.SEG_LINETO:  transform(coords, 0, coords, 0, 1); path.lineTo(coords[0], coords[1]); break;
+                case PathIterator.SEG_QUADTO:  transform(coords, 0, coords, 0, 2); path.quadTo(coords[0], coords[1], coords[2], coords[3]); break;
+                case PathIterator.SEG_CUBICTO: transform(coords, 0, coords, 0, 3); path.curveTo(coords[0], coords[1], coords[2], coords[3], coords[4], coords[5]); break;
+                case PathIterator.SEG_CLOSE:   path.closePath(); break;
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Computes the derivative at the given position.
+     *
+     * @param  point  the position where to evaluate the derivative.
+     * @return the derivative at the given position.
+     * @throws TransformException if the derivative can not be computed.
+     */
+    @Override
+    public final Matrix derivative(final DirectPosition point) throws TransformException {
+        ensureTwoDimensional(point);
+        return derivative(new Point2D.Double(point.getOrdinate(0), point.getOrdinate(1)));
+    }
+
+    /**
+     * A two-dimensional position returned by {@link Transform2D#transform(DirectPosition, DirectPosition)}.
+     */
+    private static final class Position implements DirectPosition {
+        /** The coordinate values. */
+        private final double[] coordinates;
+
+        /** Creates a new position with the given coordinates. */
+        Position(final double[] coordinates) {
+            this.coordinates = coordinates;
+        }
+
+        @Override public DirectPosition            getDirectPosition()                  {return this;}
+        @Override public CoordinateReferenceSystem getCoordinateReferenceSystem()       {return null;}
+        @Override public int                       getDimension()                       {return coordinates.length;}
+        @Override public double[]                  getCoordinate()                      {return coordinates.clone();}
+        @Override public double                    getOrdinate(int dimension)           {return coordinates[dimension];}
+        @Override public void                      setOrdinate(int dimension, double v) {coordinates[dimension] = v;}
+        @Override public int                       hashCode()                           {return Arrays.hashCode(coordinates);}
+        @Override public String                    toString()                           {return "POINT" + Arrays.toString(coordinates).replace("[", "(").replace(",", "").replace("]", ")");}
+        @Override public boolean equals(final Object other) {
+            return (other instanceof DirectPosition) && ((DirectPosition) other).getCoordinateReferenceSystem() == null
+                    && Arrays.equals(coordinates, ((DirectPosition) other).getCoordinate());
+        }
+    }
+}
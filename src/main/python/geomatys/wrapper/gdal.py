@@ -13,7 +13,9 @@
 # "geoapi/src/main/python" directory, preferably using absolute path.
 # See geoapi-gdal/src/test/python/test_metadata.py for an example.
 #
-from osgeo import gdal
+import numpy
+from concurrent.futures import ThreadPoolExecutor
+from osgeo import gdal, gdal_array
 from opengis.metadata.base           import Metadata, MetadataScope
 from opengis.metadata.maintenance    import ScopeCode
 from opengis.metadata.identification import DataIdentification
@@ -156,15 +158,66 @@ class RasterMetadata(Metadata, MetadataScope, DataIdentification, Citation, Cove
 # This API is not yet part of any GeoAPI standard.
 #
 class DataSet:
-    """A file opened by GDAL."""
+    """A file opened by GDAL. Can be used in a 'with' statement for closing the file automatically."""
 
     def __init__(self, filepath):
         """Opens a dataset for the given file in read-only mode."""
         self._ds = gdal.Open(filepath)
 
+    def _dataset(self):
+        """Returns the GDAL dataset, or raises an exception if this dataset has been closed."""
+        if self._ds is None:
+            raise ValueError("DataSet is closed.")
+        return self._ds
+
     def metadata(self):
         """Returns information about the dataset as ISO 19115 metadata."""
-        return RasterMetadata(self._ds)
+        return RasterMetadata(self._dataset())
+
+    def read(self, band=1, block_rows=1):
+        """Reads the values of a band by chunks, without loading the whole band in memory.
+
+        Each chunk covers the full raster width and a height of 'block_rows' blocks,
+        so that GDAL decodes each block only once. This method is a generator yielding
+        (y, array) tuples where 'y' is the row of the first chunk line and 'array' is a
+        NumPy array of shape (rows, width) with the type of the band values.
+        The same array is reused for all chunks: callers shall copy it if they need
+        to keep the values after the next iteration.
+        """
+        b = self._dataset().GetRasterBand(band)
+        width  = b.XSize
+        height = b.YSize
+        chunk  = b.GetBlockSize()[1] * block_rows
+        dtype  = gdal_array.GDALTypeCodeToNumericTypeCode(b.DataType)
+        buffer = numpy.empty((min(chunk, height), width), dtype=dtype)
+        for y in range(0, height, chunk):
+            rows = min(chunk, height - y)
+            view = buffer[:rows]
+            b.ReadAsArray(0, y, width, rows, buf_obj=view)
+            yield y, view
 
     def close(self):
-        pass
+        """Releases the GDAL dataset. Invoking this method more than once has no effect."""
+        self._ds = None
+
+    def __enter__(self):
+        return self
+
+    def __exit__(self, exc_type, exc_value, traceback):
+        self.close()
+        return False
+
+
+def open_many(filepaths, max_workers=None):
+    """Builds metadata for many files concurrently.
+
+    Each file is opened, its metadata are fetched and the file is closed in a thread of a pool.
+    The metadata are returned in a list in the same order than the given paths. Since metadata
+    fetching is dominated by I/O and GDAL calls, threads can overlap the latency of different files.
+    """
+    def metadata(filepath):
+        with DataSet(filepath) as ds:
+            return ds.metadata()
+
+    with ThreadPoolExecutor(max_workers=max_workers) as executor:
+        return list(executor.map(metadata, filepaths))
@@ -0,0 +1,91 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.nio.ByteBuffer;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link BlockCache} class.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final strictfp class BlockCacheTest {
+    /**
+     * Creates a key for the block at the given column in a dummy file.
+     */
+    private static BlockCache.Key key(final int blockX) {
+        return new BlockCache.Key("/dummy.tiff", 0, 1, 0, blockX, 0);
+    }
+
+    /**
+     * Tests the eviction of least recently used blocks and the hit/miss counters.
+     */
+    @Test
+    public void testEviction() {
+        final BlockCache cache = new BlockCache(300);
+        for (int i=0; i<3; i++) {
+            assertNull(cache.get(key(i)));
+            cache.put(key(i), ByteBuffer.allocateDirect(100));
+        }
+        assertEquals(300, cache.getSize());
+        assertNotNull(cache.get(key(0)));                       // Make block 0 the most recently used.
+        cache.put(key(3), ByteBuffer.allocateDirect(100));      // Should evict block 1.
+        assertEquals(300, cache.getSize());
+        assertNotNull(cache.get(key(0)));
+        assertNull   (cache.get(key(1)));
+        assertNotNull(cache.get(key(2)));
+        assertNotNull(cache.get(key(3)));
+        assertEquals(4, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+
+        cache.setCapacity(100);
+        assertEquals(100, cache.getSize());
+        assertNotNull(cache.get(key(3)));
+    }
+
+    /**
+     * Tests that a block added concurrently for the same key is kept.
+     */
+    @Test
+    public void testConcurrentPut() {
+        final BlockCache cache = new BlockCache(1000);
+        final ByteBuffer first = ByteBuffer.allocateDirect(10);
+        assertSame(first, cache.put(key(0), first));
+        assertSame(first, cache.put(key(0), ByteBuffer.allocateDirect(10)));
+        assertEquals(10, cache.getSize());
+    }
+
+    /**
+     * Tests the release of the least recently used blocks for a given amount of memory.
+     */
+    @Test
+    public void testRelease() {
+        final BlockCache cache = new BlockCache(1000);
+        for (int i=0; i<3; i++) {
+            cache.put(key(i), ByteBuffer.allocateDirect(100));
+        }
+        assertNotNull(cache.get(key(0)));                       // Make block 0 the most recently used.
+        cache.release(150);                                     // Should evict blocks 1 and 2.
+        assertEquals(100, cache.getSize());
+        assertNotNull(cache.get(key(0)));
+        assertNull   (cache.get(key(1)));
+        assertNull   (cache.get(key(2)));
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.awt.geom.Rectangle2D;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link Catalog} class.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final strictfp class CatalogTest {
+    /**
+     * Compares the results of searches in the R-tree with the results of a linear scan.
+     */
+    @Test
+    public void testSearch() {
+        final Random random = new Random(7392183L);
+        final Catalog catalog = new Catalog(null);
+        assertTrue(catalog.search(new Rectangle2D.Double(0, 0, 1000, 1000)).isEmpty());
+        final Rectangle2D[] footprints = new Rectangle2D[5000];
+        for (int i=0; i<footprints.length; i++) {
+            footprints[i] = new Rectangle2D.Double(random.nextDouble() * 1000, random.nextDouble() * 1000,
+                                                   random.nextDouble() * 20,   random.nextDouble() * 20);
+            catalog.add(Paths.get("tile-" + i + ".tiff"), footprints[i]);
+        }
+        assertEquals(footprints.length, catalog.size());
+        for (int n=0; n<200; n++) {
+            final Rectangle2D area = new Rectangle2D.Double(random.nextDouble() * 1000, random.nextDouble() * 1000,
+                                                            random.nextDouble() * 50,   random.nextDouble() * 50);
+            final Set<Path> expected = new HashSet<>();
+            for (int i=0; i<footprints.length; i++) {
+                final Rectangle2D f = footprints[i];
+                if (f.getMinX() <= area.getMaxX() && f.getMaxX() >= area.getMinX() &&
+                    f.getMinY() <= area.getMaxY() && f.getMaxY() >= area.getMinY())
+                {
+                    expected.add(Paths.get("tile-" + i + ".tiff"));
+                }
+            }
+            assertEquals(expected, new HashSet<>(catalog.search(area)));
+        }
+        catalog.add(Paths.get("extra.tiff"), new Rectangle2D.Double(2000, 2000, 1, 1));
+        assertEquals(1, catalog.search(new Rectangle2D.Double(1999, 1999, 2, 2)).size());
+    }
+}
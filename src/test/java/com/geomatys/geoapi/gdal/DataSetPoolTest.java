@@ -0,0 +1,186 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.gdal.gdal.gdal;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeNoException;
+
+
+/**
+ * Tests the {@link DataSetPool} class. This test requires the GDAL native library,
+ * and is skipped if that library is not available.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final strictfp class DataSetPoolTest {
+    /**
+     * Skips the tests if the GDAL native library can not be loaded.
+     */
+    @BeforeClass
+    public static void requireGDAL() {
+        try {
+            gdal.AllRegister();
+        } catch (UnsatisfiedLinkError | NoClassDefFoundError e) {
+            assumeNoException(e);
+        }
+    }
+
+    /**
+     * Creates a temporary raster of 2×2 pixels in the ESRI ASCII grid format.
+     *
+     * @param  value  the value of the first pixel, for distinguishing different versions of a file.
+     * @return path to the temporary file, to delete by the caller.
+     * @throws IOException if the file can not be written.
+     */
+    private static Path createRaster(final int value) throws IOException {
+        final Path file = Files.createTempFile("pool", ".asc");
+        write(file, value);
+        return file;
+    }
+
+    /**
+     * Writes a raster of 2×2 pixels in the given file.
+     */
+    private static void write(final Path file, final int value) throws IOException {
+        Files.write(file, Arrays.asList("ncols 2", "nrows 2", "xllcorner 0", "yllcorner 0", "cellsize 1",
+                value + " 2", "3 4"), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Tests that each call to {@code open} returns a distinct lease, and that closing a lease twice
+     * does not release the shared handle on behalf of another caller.
+     *
+     * @throws IOException if an error occurred while opening or reading the raster.
+     */
+    @Test
+    public void testDoubleClose() throws IOException {
+        final Path file = createRaster(1);
+        try (DataSetPool pool = new DataSetPool(2, 1, TimeUnit.MINUTES)) {
+            final DataSet first  = pool.open(file);
+            final DataSet second = pool.open(file);
+            assertNotSame(first, second);
+            assertEquals(1, pool.getOpenCount());
+            first.close();
+            first.close();                                  // Shall have no effect.
+            try {
+                first.getMetadata();
+                fail("Expected the lease to be closed.");
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("closed"));
+            }
+            pool.evictAllIdle();
+            assertEquals("Handle still used by the second lease.", 1, pool.getOpenCount());
+            assertEquals(2, ((RasterMetadata) second.getMetadata()).getWidth());
+            second.close();
+            pool.evictAllIdle();
+            assertEquals(0, pool.getOpenCount());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests the bound on the number of opened handles. When the bound is reached, an idle dataset is disposed
+     * for opening another file. When all datasets are in use, {@code open} blocks until one is closed.
+     *
+     * @throws Exception if an error occurred while opening a raster or waiting for the blocked thread.
+     */
+    @Test
+    public void testBound() throws Exception {
+        final Path file1 = createRaster(1);
+        final Path file2 = createRaster(2);
+        try (DataSetPool pool = new DataSetPool(1, 1, TimeUnit.MINUTES)) {
+            pool.open(file1).close();
+            assertEquals(1, pool.getOpenCount());
+            final DataSet ds = pool.open(file2);            // Shall dispose the idle handle of file1.
+            assertEquals(1, pool.getOpenCount());
+            final CompletableFuture<DataSet> blocked = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return pool.open(file1);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            try {
+                blocked.get(200, TimeUnit.MILLISECONDS);
+                fail("Expected the open operation to wait for an available handle.");
+            } catch (TimeoutException e) {
+                // This is the expected behavior.
+            }
+            ds.close();
+            blocked.get(10, TimeUnit.SECONDS).close();
+            assertEquals(1, pool.getOpenCount());
+        } finally {
+            Files.delete(file1);
+            Files.delete(file2);
+        }
+    }
+
+    /**
+     * Tests the disposal of datasets which stayed idle for longer than the timeout.
+     *
+     * @throws Exception if an error occurred while opening the raster or the thread has been interrupted.
+     */
+    @Test
+    public void testIdleEviction() throws Exception {
+        final Path file = createRaster(1);
+        try (DataSetPool pool = new DataSetPool(2, 20, TimeUnit.MILLISECONDS)) {
+            pool.open(file).close();
+            Thread.sleep(50);
+            pool.evictIdle();
+            assertEquals(0, pool.getOpenCount());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests that a file modified after it has been opened is opened again, while the old handle
+     * is kept until its last lease is closed.
+     *
+     * @throws IOException if an error occurred while opening or writing the raster.
+     */
+    @Test
+    public void testReopenAfterModification() throws IOException {
+        final Path file = createRaster(1);
+        try (DataSetPool pool = new DataSetPool(2, 1, TimeUnit.MINUTES)) {
+            final DataSet old = pool.open(file);
+            write(file, 5);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 10000));
+            final DataSet reopened = pool.open(file);
+            assertEquals(2, pool.getOpenCount());
+            old.close();
+            assertEquals("Retired handle shall be disposed by its last close.", 1, pool.getOpenCount());
+            assertEquals(2, ((RasterMetadata) reopened.getMetadata()).getWidth());
+            reopened.close();
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.awt.geom.AffineTransform;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.gdal.gdal.gdal;
+import org.gdal.gdalconst.gdalconst;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeNoException;
+
+
+/**
+ * Tests the {@link DataSetWriter} class. This test requires the GDAL native library,
+ * and is skipped if that library is not available.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final strictfp class DataSetWriterTest {
+    /**
+     * Skips the tests if the GDAL native library can not be loaded.
+     */
+    @BeforeClass
+    public static void requireGDAL() {
+        try {
+            gdal.AllRegister();
+        } catch (UnsatisfiedLinkError | NoClassDefFoundError e) {
+            assumeNoException(e);
+        }
+    }
+
+    /**
+     * Writes a raster of 20×10 pixels in blocks of 16×16 pixels, then reads it back.
+     *
+     * @throws IOException if an error occurred while writing or reading the raster.
+     */
+    @Test
+    public void testWriteBlocks() throws IOException {
+        final Path file = Files.createTempFile("writer", ".tiff");
+        try {
+            try (DataSetWriter writer = new DataSetWriter(file, 20, 10, 1, gdalconst.GDT_Byte,
+                    "BLOCKXSIZE=16", "BLOCKYSIZE=16", "COMPRESS=NONE"))
+            {
+                assertEquals(2, writer.getNumBlocksX());
+                assertEquals(1, writer.getNumBlocksY());
+                assertEquals(16*16, writer.getBlockLength());
+                writer.setGeoreferencing(new AffineTransform(1, 0, 0, -1, 100, 50), null);
+                final ByteBuffer block = ByteBuffer.allocateDirect(writer.getBlockLength()).order(ByteOrder.nativeOrder());
+                for (int bx=0; bx<writer.getNumBlocksX(); bx++) {
+                    block.clear();
+                    for (int i=0; i<writer.getBlockLength(); i++) {
+                        block.put(i, (byte) (bx + 1));
+                    }
+                    writer.writeBlock(1, bx, 0, block);
+                }
+            }
+            try (DataSet ds = new DataSet(file)) {
+                final RasterMetadata metadata = (RasterMetadata) ds.getMetadata();
+                assertEquals(20, metadata.getWidth());
+                assertEquals(10, metadata.getHeight());
+                assertEquals(new AffineTransform(1, 0, 0, -1, 100, 50), metadata.getGridToCRS());
+                final ByteBuffer values = ds.readBlock(1, 0, 1, 0);
+                assertEquals(2, values.get(0));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Tests that {@link DataSetWriter#setGeoreferencing(org.opengis.metadata.Metadata)} rejects
+     * the metadata of a raster of different size.
+     *
+     * @throws IOException if an error occurred while creating the files.
+     */
+    @Test
+    public void testGeoreferencingSizeMismatch() throws IOException {
+        final Path source = Files.createTempFile("source", ".asc");
+        final Path file   = Files.createTempFile("writer", ".tiff");
+        try {
+            Files.write(source, Arrays.asList("ncols 2", "nrows 2", "xllcorner 0", "yllcorner 0", "cellsize 1",
+                    "1 2", "3 4"), StandardCharsets.US_ASCII);
+            try (DataSet ds = new DataSet(source);
+                 DataSetWriter writer = new DataSetWriter(file, 3, 2, 1, gdalconst.GDT_Byte))
+            {
+                try {
+                    writer.setGeoreferencing(ds.getMetadata());
+                    fail("Expected the size mismatch to be rejected.");
+                } catch (IllegalArgumentException e) {
+                    assertTrue(e.getMessage().contains("3×2"));
+                }
+            }
+        } finally {
+            Files.deleteIfExists(source);
+            Files.deleteIfExists(file);
+        }
+    }
+}
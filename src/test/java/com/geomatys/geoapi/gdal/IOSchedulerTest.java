@@ -0,0 +1,108 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link IOScheduler} class.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final strictfp class IOSchedulerTest {
+    /**
+     * Tests that operations submitted with the same key are executed in submission order.
+     *
+     * @throws Exception if an operation failed.
+     */
+    @Test
+    public void testQueueOrder() throws Exception {
+        try (IOScheduler scheduler = new IOScheduler(4, 100)) {
+            final List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+            final List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            for (int i=0; i<20; i++) {
+                final Integer value = i;
+                futures.add(scheduler.submit("file", () -> {order.add(value); return value;}));
+            }
+            for (int i=0; i<20; i++) {
+                assertEquals(Integer.valueOf(i), futures.get(i).get());
+            }
+            for (int i=0; i<20; i++) {
+                assertEquals(Integer.valueOf(i), order.get(i));
+            }
+        }
+    }
+
+    /**
+     * Tests the rejection of operations when too many are pending, and the cancellation of pending operations.
+     * The permit of a cancelled operation shall be available immediately, and the permit of a completed
+     * operation shall be available as soon as its future is completed.
+     *
+     * @throws Exception if an operation failed.
+     */
+    @Test
+    public void testBackpressure() throws Exception {
+        try (IOScheduler scheduler = new IOScheduler(1, 2)) {
+            final CountDownLatch release = new CountDownLatch(1);
+            final CompletableFuture<Boolean> blocking = scheduler.submit("file", () -> {release.await(); return true;});
+            final CompletableFuture<Boolean> pending  = scheduler.submit("file", () -> {fail("Cancelled."); return false;});
+            final CompletableFuture<Boolean> rejected = scheduler.submit("file", () -> true);
+            try {
+                rejected.get();
+                fail("Expected a rejection.");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+            assertTrue(pending.cancel(false));
+            final CompletableFuture<Boolean> accepted = scheduler.submit("file", () -> true);
+            assertFalse(accepted.isCompletedExceptionally());
+            release.countDown();
+            assertTrue(blocking.thenCompose((r) -> scheduler.submit("file", () -> r)).get());
+            assertTrue(accepted.get());
+            assertTrue(scheduler.submit("file", () -> true).get());
+        }
+    }
+
+    /**
+     * Tests that an error thrown by an operation completes the future instead of leaving it pending.
+     *
+     * @throws Exception if the future did not complete in time.
+     */
+    @Test
+    public void testError() throws Exception {
+        try (IOScheduler scheduler = new IOScheduler(1, 2)) {
+            final CompletableFuture<Boolean> future = scheduler.submit("file", () -> {throw new OutOfMemoryError("Test");});
+            try {
+                future.get(10, TimeUnit.SECONDS);
+                fail("Expected the error to be reported.");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof OutOfMemoryError);
+            }
+            assertTrue(scheduler.submit("file", () -> true).get(10, TimeUnit.SECONDS));
+        }
+    }
+}
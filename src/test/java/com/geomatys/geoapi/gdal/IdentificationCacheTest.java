@@ -0,0 +1,70 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link IdentificationCache} class.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final strictfp class IdentificationCacheTest {
+    /**
+     * Tests the removal of white spaces outside quoted texts.
+     */
+    @Test
+    public void testNormalize() {
+        assertEquals("GEOGCS[\"WGS 84\",DATUM[\"WGS_1984\"]]",
+                IdentificationCache.normalize("GEOGCS[\"WGS 84\",\n  DATUM[\"WGS_1984\"]]"));
+    }
+
+    /**
+     * Tests saving and loading identifications. A cached identification is found without
+     * GDAL object even if the WKT is formatted differently.
+     *
+     * @throws IOException if the temporary file can not be written or read.
+     */
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        final String wkt = "GEOGCS[\"WGS 84\", DATUM[\"WGS_1984\"]]";
+        final Path file = Files.createTempFile("identifications", ".properties");
+        try {
+            Files.write(file, Collections.singleton(IdentificationCache.normalize(wkt).replace("=", "\\=")
+                    .replace(" ", "\\ ") + "=EPSG\\:4326"));
+            IdentificationCache.clear();
+            IdentificationCache.load(file);
+            assertEquals(1, IdentificationCache.size());
+            assertEquals(new AuthorityCode("EPSG", "4326"), IdentificationCache.lookup("GEOGCS[\"WGS 84\",\nDATUM[\"WGS_1984\"]]", null));
+
+            IdentificationCache.save(file);
+            IdentificationCache.clear();
+            assertEquals(0, IdentificationCache.size());
+            IdentificationCache.load(file);
+            assertEquals("EPSG:4326", IdentificationCache.lookup(wkt, null).toString());
+        } finally {
+            IdentificationCache.clear();
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link JMXMetrics} class.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final strictfp class JMXMetricsTest {
+    /**
+     * Tests the counters, latency histograms and cache hit ratios.
+     */
+    @Test
+    public void testRecord() {
+        final JMXMetrics metrics = new JMXMetrics();
+        metrics.record(Metrics.Operation.READ, 1000, 400);
+        metrics.record(Metrics.Operation.READ, 3000, 100);
+        metrics.cacheAccess(Metrics.Cache.BLOCK, true);
+        metrics.cacheAccess(Metrics.Cache.BLOCK, true);
+        metrics.cacheAccess(Metrics.Cache.BLOCK, false);
+        metrics.cacheAccess(Metrics.Cache.BLOCK, true);
+
+        assertEquals(Long.valueOf(2),   metrics.getCounts()   .get("READ"));
+        assertEquals(Long.valueOf(500), metrics.getBytesRead().get("READ"));
+        assertEquals(Long.valueOf(0),   metrics.getCounts()   .get("OPEN"));
+        assertEquals(2.0,  metrics.getMeanLatencies().get("READ"),   1E-12);
+        assertEquals(0.75, metrics.getCacheHitRatios().get("BLOCK"), 1E-12);
+        assertTrue(Double.isNaN(metrics.getCacheHitRatios().get("CRS")));
+
+        final long[] histogram = metrics.getLatencyHistograms().get("READ");
+        assertEquals(1, histogram[9]);          // 512 ≤ 1000 < 1024
+        assertEquals(1, histogram[11]);         // 2048 ≤ 3000 < 4096
+
+        metrics.reset();
+        assertEquals(Long.valueOf(0), metrics.getCounts().get("READ"));
+    }
+}
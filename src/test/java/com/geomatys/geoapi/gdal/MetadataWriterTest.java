@@ -0,0 +1,121 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.awt.geom.AffineTransform;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link MetadataWriter} class.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final strictfp class MetadataWriterTest {
+    /**
+     * A title with all characters that need to be escaped in XML or JSON.
+     */
+    private static final String TITLE = "A \"quoted\" <title> & back\\slash\u0001";
+
+    /**
+     * Creates the metadata to encode. The standard deviation is NaN since there is only one valid value.
+     */
+    private static RasterMetadata metadata() {
+        final RasterMetadata md = new RasterMetadata(3, 2, 1, new AffineTransform(), null, TITLE, null);
+        md.setDimensions(Collections.singletonList(new BandStatistics(null, 8, 1, 5, 4, 4, 4, Double.NaN, new long[] {1})));
+        return md;
+    }
+
+    /**
+     * Encodes the given number of records in the given format.
+     */
+    private static String encode(final MetadataWriter.Format format, final boolean batch, final int count) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MetadataWriter writer = new MetadataWriter(out, format, batch)) {
+            for (int i=0; i<count; i++) {
+                writer.write("file" + i + ".tif", metadata());
+            }
+            writer.close();                 // Closing twice shall have no effect.
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses the given XML document.
+     */
+    private static Document parse(final String xml) throws Exception {
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Tests encoding as ISO 19139 XML, with a single record and in batch mode.
+     *
+     * @throws Exception if an error occurred while writing or parsing the document.
+     */
+    @Test
+    public void testXML() throws Exception {
+        Document doc = parse(encode(MetadataWriter.Format.XML, false, 1));
+        assertEquals("MD_Metadata", doc.getDocumentElement().getLocalName());
+        assertEquals("A \"quoted\" <title> & back\\slash\uFFFD",
+                     doc.getElementsByTagNameNS("http://www.isotc211.org/2005/gmd", "title").item(0).getTextContent());
+        assertEquals("4.0", doc.getElementsByTagNameNS("http://www.isotc211.org/2005/gmd", "maxValue").item(0).getTextContent());
+
+        doc = parse(encode(MetadataWriter.Format.XML, true, 3));
+        assertEquals("metadataCollection", doc.getDocumentElement().getLocalName());
+        assertEquals(3, doc.getElementsByTagNameNS("http://www.isotc211.org/2005/gmd", "MD_Metadata").getLength());
+
+        doc = parse(encode(MetadataWriter.Format.XML, true, 0));
+        assertEquals("metadataCollection", doc.getDocumentElement().getLocalName());
+        assertEquals(0, doc.getElementsByTagNameNS("http://www.isotc211.org/2005/gmd", "MD_Metadata").getLength());
+        assertEquals("MD_Metadata", parse(encode(MetadataWriter.Format.XML, false, 0)).getDocumentElement().getLocalName());
+    }
+
+    /**
+     * Tests encoding as JSON and NDJSON, including escaping and the batch framing.
+     *
+     * @throws IOException if an error occurred while writing.
+     */
+    @Test
+    public void testJSON() throws IOException {
+        final String record = "{\"fileIdentifier\":\"file0.tif\",\"hierarchyLevel\":\"dataset\","
+                + "\"spatialRepresentationInfo\":{\"numberOfDimensions\":2,\"axisDimensionProperties\":["
+                + "{\"dimensionName\":\"column\",\"dimensionSize\":3},{\"dimensionName\":\"row\",\"dimensionSize\":2}],"
+                + "\"transformationParameterAvailability\":false},"
+                + "\"identificationInfo\":{\"citation\":{\"title\":\"A \\\"quoted\\\" <title> & back\\\\slash\\u0001\"}},"
+                + "\"contentInfo\":{\"dimension\":[{\"minValue\":4.0,\"maxValue\":4.0,\"meanValue\":4.0,"
+                + "\"standardDeviation\":null,\"count\":1,\"noDataCount\":5}]}}";
+
+        assertEquals(record + '\n', encode(MetadataWriter.Format.JSON, false, 1));
+        assertEquals("{}\n",        encode(MetadataWriter.Format.JSON, false, 0));
+        assertEquals("[]\n",        encode(MetadataWriter.Format.JSON, true,  0));
+        assertEquals("[\n" + record + ",\n" + record.replace("file0", "file1") + "\n]\n",
+                     encode(MetadataWriter.Format.JSON, true, 2));
+        assertEquals(record + '\n' + record.replace("file0", "file1") + '\n',
+                     encode(MetadataWriter.Format.NDJSON, false, 2));
+        assertEquals("", encode(MetadataWriter.Format.NDJSON, true, 0));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link Mosaic} class.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final strictfp class MosaicTest {
+    /**
+     * Tests the parts to read from two aligned sources overlapping by one pixel column.
+     * The second source has priority, so the overlapping column shall be read only from it.
+     */
+    @Test
+    public void testOverlappingWindows() {
+        final Path first  = Paths.get("first.tif");
+        final Path second = Paths.get("second.tif");
+        final Map<Path,RasterMetadata> sources = new LinkedHashMap<>();
+        sources.put(first,  new RasterMetadata(10, 10, 1, new AffineTransform(2, 0, 0, -2, 100, 50), null, null, null));
+        sources.put(second, new RasterMetadata(10, 10, 1, new AffineTransform(2, 0, 0, -2, 118, 50), null, null, null));
+        final Mosaic mosaic = new Mosaic(sources, new DataSetPool(2, 1, TimeUnit.SECONDS));
+
+        Map<Path,List<Rectangle>> windows = mosaic.windows(new Rectangle(0, 0, 19, 10));
+        assertEquals(Collections.singletonList(new Rectangle(0, 0,  9, 10)), windows.get(first));
+        assertEquals(Collections.singletonList(new Rectangle(9, 0, 10, 10)), windows.get(second));
+
+        windows = mosaic.windows(new Rectangle(5, 2, 6, 3));
+        assertEquals(Collections.singletonList(new Rectangle(5, 2, 4, 3)), windows.get(first));
+        assertEquals(Collections.singletonList(new Rectangle(9, 2, 2, 3)), windows.get(second));
+
+        windows = mosaic.windows(new Rectangle(9, 0, 3, 3));
+        assertFalse("Hidden source shall not be read.", windows.containsKey(first));
+        assertEquals(Collections.singletonList(new Rectangle(9, 0, 3, 3)), windows.get(second));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.nio.ByteBuffer;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Tests the {@link NativeResources} class.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final strictfp class NativeResourcesTest {
+    /**
+     * Tests the rejection of allocations exceeding the budget. The rejected request is larger than the whole
+     * budget, so it fails immediately without discarding idle datasets or blocks of the shared cache.
+     *
+     * @throws GDALException if the first allocation exceeds the budget.
+     */
+    @Test
+    public void testBudget() throws GDALException {
+        final long previous = NativeResources.getBudget();
+        NativeResources.setBudget(NativeResources.getAllocated() + 1000);
+        try {
+            final ByteBuffer buffer = NativeResources.allocate(600);
+            assertEquals(600, buffer.capacity());
+            final long allocated = NativeResources.getAllocated();
+            try {
+                NativeResources.allocate(Math.toIntExact(NativeResources.getBudget() + 1));
+                fail("Expected the budget to be exceeded.");
+            } catch (GDALException e) {
+                assertTrue(e.getMessage().contains("budget"));
+            }
+            assertTrue("Rejected request shall not be accounted.", NativeResources.getAllocated() <= allocated);
+            assertEquals(600, buffer.capacity());              // Keep the buffer reachable until here.
+        } finally {
+            NativeResources.setBudget(previous);
+        }
+    }
+
+    /**
+     * Tests that the memory of a garbage-collected buffer is removed from the count. Garbage collection is
+     * simulated by invoking directly the action executed for dequeued references, so this test does not
+     * depend on {@link System#gc()}. The shared block cache is not involved since the budget is not limited.
+     *
+     * @throws GDALException if the allocation exceeds the budget.
+     */
+    @Test
+    public void testReclaim() throws GDALException {
+        final ByteBuffer buffer = NativeResources.allocateReserved(600);
+        final Object tracker = NativeResources.track(buffer, buffer.capacity());
+        final long allocated = NativeResources.getAllocated();
+        assertTrue(NativeResources.reclaim(tracker));
+        assertTrue("Reclaimed buffer shall not be accounted.", NativeResources.getAllocated() <= allocated - 600);
+        assertFalse("Shall release only once.", NativeResources.reclaim(tracker));
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ *    GeoAPI - Java interfaces for OGC/ISO standards
+ *    http://www.geoapi.org
+ *
+ *    This file is hereby placed into the Public Domain.
+ *    This means anyone is free to do whatever they wish with this file.
+ *
+ *    The GDAL wrappers are provided as code examples, in the hope to facilitate
+ *    GeoAPI implementations backed by other libraries. Implementers can take this
+ *    source code and use it for any purpose, commercial or non-commercial, copyrighted
+ *    or open-source, with no legal obligation to acknowledge the borrowing/copying
+ *    in any way.
+ */
+package com.geomatys.geoapi.gdal;
+
+import java.awt.geom.AffineTransform;
+import org.gdal.gdalconst.gdalconst;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeNoException;
+
+
+/**
+ * Tests the {@link SampleBuffer} class and its subclasses. Except {@link #testCreate()},
+ * those tests do not require the GDAL native library.
+ *
+ * @author  Martin Desruisseaux (Geomatys)
+ * @version 1.0
+ * @since   1.0
+ */
+public final strictfp class SampleBufferTest {
+    /**
+     * Returns a grid geometry of 3×2 pixels with the given number of bands.
+     */
+    private static GridGeometry grid(final int numBands) {
+        return new GridGeometry(3, 2, numBands, new AffineTransform(), null);
+    }
+
+    /**
+     * Tests {@link SampleBuffer#index(int, int, int)}, which shall store values band after band, then row after row.
+     *
+     * @throws GDALException if the native memory budget is exceeded.
+     */
+    @Test
+    public void testIndex() throws GDALException {
+        final SampleBuffer.Ints buffer = new SampleBuffer.Ints(grid(2));
+        assertEquals(3, buffer.getWidth());
+        assertEquals(2, buffer.getHeight());
+        assertEquals(2, buffer.getNumBands());
+        assertEquals(12, buffer.size());
+        assertEquals( 0, buffer.index(0, 0, 0));
+        assertEquals( 2, buffer.index(0, 2, 0));
+        assertEquals( 3, buffer.index(0, 0, 1));
+        assertEquals( 6, buffer.index(1, 0, 0));
+        assertEquals(11, buffer.index(1, 2, 1));
+        final int[][] outOfBounds = {{2, 0, 0}, {-1, 0, 0}, {0, 3, 0}, {0, -1, 0}, {0, 0, 2}, {0, 0, -1}};
+        for (final int[] p : outOfBounds) {
+            try {
+                buffer.index(p[0], p[1], p[2]);
+                fail("Expected an exception for band " + p[0] + ", pixel (" + p[1] + ", " + p[2] + ").");
+            } catch (IndexOutOfBoundsException e) {
+                assertTrue(e.getMessage().contains("(" + p[1] + ", " + p[2] + ")"));
+            }
+        }
+    }
+
+    /**
+     * Tests the wrapping of values out of the range of unsigned bytes.
+     *
+     * @throws GDALException if the native memory budget is exceeded.
+     */
+    @Test
+    public void testUnsignedBytes() throws GDALException {
+        final SampleBuffer.Bytes buffer = new SampleBuffer.Bytes(grid(1));
+        buffer.set(0, 200);
+        buffer.set(1, 256 + 7);
+        buffer.set(2, -1);
+        buffer.setDouble(3, 300);
+        assertEquals(200, buffer.get(0));
+        assertEquals(7,   buffer.get(1));
+        assertEquals(255, buffer.get(2));
+        assertEquals(44,  buffer.get(3));
+        assertEquals(200, buffer.getDouble(0), 0);
+        final byte[] raw = new byte[2];
+        buffer.get(0, raw, 0, 2);
+        assertEquals((byte) 200, raw[0]);
+        assertEquals(7, raw[1]);
+    }
+
+    /**
+     * Tests the wrapping of values out of the range of unsigned shorts, and the difference with signed shorts.
+     *
+     * @throws GDALException if the native memory budget is exceeded.
+     */
+    @Test
+    public void testUnsignedShorts() throws GDALException {
+        final SampleBuffer.UnsignedShorts unsigned = new SampleBuffer.UnsignedShorts(grid(1));
+        unsigned.set(0, 40000);
+        unsigned.set(1, 65536 + 3);
+        unsigned.setDouble(2, -1);
+        assertEquals(40000, unsigned.get(0));
+        assertEquals(3,     unsigned.get(1));
+        assertEquals(65535, unsigned.get(2));
+        assertEquals(40000, unsigned.getDouble(0), 0);
+
+        final SampleBuffer.Shorts signed = new SampleBuffer.Shorts(grid(1));
+        signed.setDouble(0, 40000);
+        assertEquals((short) 40000, signed.get(0));
+        assertEquals(40000 - 65536, signed.getDouble(0), 0);
+    }
+
+    /**
+     * Tests bulk copies to and from arrays, with offsets in both the buffer and the array.
+     *
+     * @throws GDALException if the native memory budget is exceeded.
+     */
+    @Test
+    public void testBulkCopy() throws GDALException {
+        final SampleBuffer.Floats floats = new SampleBuffer.Floats(grid(1));
+        floats.set(2, new float[] {9, 1.5f, 2.5f, 3.5f, 9}, 1, 3);
+        assertEquals(0,    floats.get(1), 0);
+        assertEquals(1.5f, floats.get(2), 0);
+        assertEquals(3.5f, floats.get(4), 0);
+        assertEquals(0,    floats.get(5), 0);
+        final float[] fa = new float[4];
+        floats.get(3, fa, 1, 2);
+        assertArrayEquals(new float[] {0, 2.5f, 3.5f, 0}, fa, 0);
+
+        final SampleBuffer.Doubles doubles = new SampleBuffer.Doubles(grid(2));
+        final double[] values = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12};
+        doubles.set(0, values, 0, values.length);
+        assertEquals(12, doubles.get(doubles.index(1, 2, 1)), 0);
+        final double[] da = new double[3];
+        doubles.get(doubles.index(1, 0, 1), da, 0, 3);
+        assertArrayEquals(new double[] {10, 11, 12}, da, 0);
+
+        final SampleBuffer.Ints ints = new SampleBuffer.Ints(grid(1));
+        ints.set(1, new int[] {-5, Integer.MAX_VALUE}, 0, 2);
+        final int[] ia = new int[3];
+        ints.get(0, ia, 0, 3);
+        assertArrayEquals(new int[] {0, -5, Integer.MAX_VALUE}, ia);
+        try {
+            ints.get(5, ia, 0, 3);
+            fail("Expected an exception for reading past the end of the buffer.");
+        } catch (RuntimeException e) {
+            // This is the expected behavior (BufferUnderflowException).
+        }
+    }
+
+    /**
+     * Tests the buffer type selected by {@link SampleBuffer#create(int, GridGeometry)} for each GDAL type.
+     * This test requires the GDAL native library for the values of {@link gdalconst} constants.
+     *
+     * @throws GDALException if the native memory budget is exceeded.
+     */
+    @Test
+    public void testCreate() throws GDALException {
+        final int[] types;
+        try {
+            types = new int[] {gdalconst.GDT_Byte, gdalconst.GDT_Int16, gdalconst.GDT_UInt16, gdalconst.GDT_Int32,
+                               gdalconst.GDT_Float32, gdalconst.GDT_Float64, gdalconst.GDT_UInt32, gdalconst.GDT_CFloat32};
+        } catch (UnsatisfiedLinkError | NoClassDefFoundError e) {
+            assumeNoException(e);
+            return;
+        }
+        final Class<?>[] expected = {
+            SampleBuffer.Bytes.class, SampleBuffer.Shorts.class, SampleBuffer.UnsignedShorts.class, SampleBuffer.Ints.class,
+            SampleBuffer.Floats.class, SampleBuffer.Doubles.class, SampleBuffer.Doubles.class, SampleBuffer.Doubles.class
+        };
+        for (int i=0; i<types.length; i++) {
+            final SampleBuffer buffer = SampleBuffer.create(types[i], grid(1));
+            assertEquals(expected[i], buffer.getClass());
+            if (i < 6) {
+                assertEquals(types[i], buffer.getDataType());
+            }
+        }
+    }
+}